@@ -1,5 +1,6 @@
 package stincmale.sandbox.benchmarks;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -9,14 +10,23 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
-import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
 
+/**
+ * Compares strategies of filling a {@code long[]} with zeros, ones and indices.
+ * Lengths go well beyond the L3 cache size.
+ * <p>
+ * {@code clone*} benchmarks allocate a new array instead of filling the existing one.
+ * Filling with zeros via {@code MemorySegment.fill} is compared with
+ * {@link Arrays#fill(long[], long)} in {@code foreign.MemorySegmentFillPerformanceBench},
+ * which is compiled separately.</p>
+ */
 public class ArrayFillPerformanceBench {
-    private static final int ARRAY_SIZE = 100_000;
+    private static final int ARRAY_SIZE = 10_000_000;
     private static final long[] ARR_FILLED_WITH_ZEROS;
     private static final long[] ARR_FILLED_WITH_ONES;
     private static final long[] ARR_FILLED_WITH_INDICES;
@@ -36,7 +46,7 @@ public class ArrayFillPerformanceBench {
 
     @Test
     public void run() throws RunnerException {
-        new Runner(newOptionsBuilder(opts -> opts.forks(20)
+        JmhRunner.run(newOptionsBuilder(opts -> opts.forks(20)
                 .warmupTime(milliseconds(100))
                 .warmupIterations(5)
                 .measurementTime(milliseconds(100))
@@ -45,8 +55,7 @@ public class ArrayFillPerformanceBench {
                 .shouldDoGC(true)
                 .mode(Mode.Throughput)
                 .timeUnit(TimeUnit.MILLISECONDS)
-                .build())
-                .run();
+                .build());
     }
 
     @Benchmark
@@ -61,6 +70,16 @@ public class ArrayFillPerformanceBench {
         System.arraycopy(ARR_FILLED_WITH_ZEROS, 0, state.arr, 0, state.arr.length);
     }
 
+    @Benchmark
+    public void arraysFill0(final ThreadState state) {
+        Arrays.fill(state.arr, 0);
+    }
+
+    @Benchmark
+    public long[] clone0(final ThreadState state) {
+        return state.template0.clone();
+    }
+
     @Benchmark
     public void forLoop1(final ThreadState state) {
         for (int i = 0; i < state.arr.length; i++) {
@@ -73,6 +92,16 @@ public class ArrayFillPerformanceBench {
         System.arraycopy(ARR_FILLED_WITH_ONES, 0, state.arr, 0, state.arr.length);
     }
 
+    @Benchmark
+    public void arraysFill1(final ThreadState state) {
+        Arrays.fill(state.arr, 1);
+    }
+
+    @Benchmark
+    public long[] clone1(final ThreadState state) {
+        return state.template1.clone();
+    }
+
     @Benchmark
     public void forLoopIdx(final ThreadState state) {
         for (int i = 0; i < state.arr.length; i++) {
@@ -85,12 +114,37 @@ public class ArrayFillPerformanceBench {
         System.arraycopy(ARR_FILLED_WITH_INDICES, 0, state.arr, 0, state.arr.length);
     }
 
+    @Benchmark
+    public void arraysSetAllIdx(final ThreadState state) {
+        Arrays.setAll(state.arr, i -> i);
+    }
+
+    @Benchmark
+    public void arraysParallelSetAllIdx(final ThreadState state) {
+        Arrays.parallelSetAll(state.arr, i -> i);
+    }
+
+    @Benchmark
+    public long[] cloneIdx(final ThreadState state) {
+        return state.templateIdx.clone();
+    }
+
     @State(Scope.Thread)
     public static class ThreadState {
         // must not be bigger than ARRAY_SIZE
-        @Param({"10", "100", "1000", "10000", "100000"})
+        @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
         private int length;
         private long[] arr;
+        private long[] template0;
+        private long[] template1;
+        private long[] templateIdx;
+
+        @Setup(Level.Trial)
+        public final void setupTrial() {
+            template0 = Arrays.copyOf(ARR_FILLED_WITH_ZEROS, length);
+            template1 = Arrays.copyOf(ARR_FILLED_WITH_ONES, length);
+            templateIdx = Arrays.copyOf(ARR_FILLED_WITH_INDICES, length);
+        }
 
         @Setup(Level.Iteration)
         public final void setup() {
@@ -2,7 +2,14 @@ package stincmale.sandbox.benchmarks;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -18,28 +25,29 @@ import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
-import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.results.RunResult;
 import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import stincmale.sandbox.benchmarks.util.AllocationFree;
+import stincmale.sandbox.benchmarks.util.AllocationFreeChecker;
+import stincmale.sandbox.benchmarks.util.CpuTopology;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.pinCpus;
+import stincmale.sandbox.benchmarks.util.JmhResults;
+import static stincmale.sandbox.benchmarks.util.JmhResults.forEachJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.format;
+import static stincmale.sandbox.benchmarks.util.JmhResults.key;
+import static stincmale.sandbox.benchmarks.util.JmhResults.score;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
 
 public class AtomicApiComparisonBench {
     public AtomicApiComparisonBench() {
     }
 
     public final void runThroughputBenchmarks(final int numberOfThreads) throws RunnerException {
-        new Runner(newOptionsBuilder(opts -> opts.forks(15)
-                .warmupTime(milliseconds(200))
-                .warmupIterations(10)
-                .measurementTime(milliseconds(200))
-                .measurementIterations(3))
-                .include(includeBenchmarks(getClass()))
-                .mode(Mode.Throughput)
-                .timeUnit(TimeUnit.MICROSECONDS)
-                .threads(numberOfThreads)
-                .build())
-                .run();
+        JmhRunner.run(newThroughputOptions(numberOfThreads).build());
     }
 
     @Test
@@ -57,12 +65,82 @@ public class AtomicApiComparisonBench {
         runThroughputBenchmarks(32);
     }
 
+    /**
+     * Runs benchmarks in 2 threads for each {@link CpuTopology} available on the machine,
+     * and reports the throughput depending on whether the threads share a physical core,
+     * only a socket, or neither.
+     */
+    @Test
+    public final void throughputThreads2CpuTopologies() throws RunnerException {
+        final int numberOfThreads = 2;
+        final List<RunResult> results = new ArrayList<>();
+        final List<CpuTopology> topologies = new ArrayList<>();
+        for (final CpuTopology topology : CpuTopology.values()) {
+            if (topology.cpus(numberOfThreads)
+                    .isPresent()) {
+                topologies.add(topology);
+                results.addAll(JmhRunner.run(
+                        pinCpus(newThroughputOptions(numberOfThreads), topology).build()));
+            } else {
+                System.out.printf(Locale.ROOT,
+                        "%n# non-JMH: skipping the %s CPU topology, which is not available%n",
+                        topology);
+            }
+        }
+        forEachJvm(results,
+                (jvm, jvmResults) -> printThroughputPerCpuTopology(jvmResults, topologies));
+    }
+
+    /**
+     * Verifies that CAS loops on primitive {@code long}s do not allocate,
+     * unlike their counterparts on {@link Long}s, which box.
+     */
+    @Test
+    public final void allocationFree() throws RunnerException {
+        AllocationFreeChecker.check(getClass());
+    }
+
+    private static final ChainedOptionsBuilder newThroughputOptions(final int numberOfThreads) {
+        return newOptionsBuilder(opts -> opts.forks(15)
+                .warmupTime(milliseconds(200))
+                .warmupIterations(10)
+                .measurementTime(milliseconds(200))
+                .measurementIterations(3))
+                .include(includeBenchmarks(AtomicApiComparisonBench.class))
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .threads(numberOfThreads);
+    }
+
+    private static final void printThroughputPerCpuTopology(
+            final Collection<RunResult> results, final List<CpuTopology> topologies) {
+        final Map<String, RunResult> index = JmhResults.index(results,
+                result -> key(result) + " " + CpuTopology.of(result)
+                        .orElseThrow());
+        final Set<String> benchmarks = new TreeSet<>();
+        results.forEach(result -> benchmarks.add(key(result)));
+        System.out.printf(Locale.ROOT, "%n# non-JMH: throughput per CPU topology, ops/us%n");
+        System.out.printf(Locale.ROOT, "%-55s", "benchmark");
+        topologies.forEach(topology -> System.out.printf(Locale.ROOT, " %12s", topology));
+        System.out.println();
+        for (final String benchmark : benchmarks) {
+            System.out.printf(Locale.ROOT, "%-55s", benchmark);
+            for (final CpuTopology topology : topologies) {
+                final RunResult result = index.get(benchmark + " " + topology);
+                System.out.printf(Locale.ROOT, " %12s", format(result, "%.3f", JmhResults::score));
+            }
+            System.out.println();
+        }
+    }
+
     @Benchmark
+    @AllocationFree
     public final long atomicLongGetAndIncrement(final BenchmarkState state) {
         return state.atomicLong.getAndIncrement();
     }
 
     @Benchmark
+    @AllocationFree
     public final long atomicLongGetAndIncrementManual(final BenchmarkState state) {
         final AtomicLong atomic = state.atomicLong;
         long v;
@@ -73,6 +151,7 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long atomicLongGetAndIncrementManualBackoff(final BenchmarkState state) {
         final AtomicLong atomic = state.atomicLong;
         long v;
@@ -87,11 +166,13 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long atomicLongFieldUpdaterGetAndIncrement(final BenchmarkState state) {
         return BenchmarkState.ATOMIC_LONG_FIELD_UPDATER.getAndIncrement(state);
     }
 
     @Benchmark
+    @AllocationFree
     public final long atomicLongFieldUpdaterGetAndIncrementManual(final BenchmarkState state) {
         final AtomicLongFieldUpdater<BenchmarkState> atomicFieldUpdater =
                 BenchmarkState.ATOMIC_LONG_FIELD_UPDATER;
@@ -103,6 +184,7 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long atomicLongFieldUpdaterGetAndIncrementManualBackoff(
             final BenchmarkState state) {
         final AtomicLongFieldUpdater<BenchmarkState> atomicFieldUpdater =
@@ -119,11 +201,13 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long varHandleLongGetAndIncrement(final BenchmarkState state) {
         return (long) BenchmarkState.VAR_HANDLE_LONG.getAndAdd(state, 1L);
     }
 
     @Benchmark
+    @AllocationFree
     public final long varHandleLongGetAndIncrementManual(final BenchmarkState state) {
         final VarHandle varHandle = BenchmarkState.VAR_HANDLE_LONG;
         long v;
@@ -134,6 +218,7 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long varHandleLongGetAndIncrementManualBackoff(final BenchmarkState state) {
         final VarHandle varHandle = BenchmarkState.VAR_HANDLE_LONG;
         long v;
@@ -236,6 +321,7 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long atomicLongCompareAndSet(
             final BenchmarkState benchmarkState, final ThreadState threadState) {
         final long newV = threadState.getAndAdvanceLong();
@@ -248,6 +334,7 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long atomicLongCompareAndSetBackoff(
             final BenchmarkState benchmarkState, final ThreadState threadState) {
         final long newV = threadState.getAndAdvanceLong();
@@ -264,6 +351,7 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long atomicLongFieldUpdaterCompareAndSet(
             final BenchmarkState benchmarkState, final ThreadState threadState) {
         final long newV = threadState.getAndAdvanceLong();
@@ -277,6 +365,7 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long atomicLongFieldUpdaterCompareAndSetBackoff(
             final BenchmarkState benchmarkState, final ThreadState threadState) {
         final long newV = threadState.getAndAdvanceLong();
@@ -294,6 +383,7 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long varHandleLongCompareAndSet(
             final BenchmarkState benchmarkState, final ThreadState threadState) {
         final long newV = threadState.getAndAdvanceLong();
@@ -306,6 +396,7 @@ public class AtomicApiComparisonBench {
     }
 
     @Benchmark
+    @AllocationFree
     public final long varHandleLongCompareAndSetBackoff(
             final BenchmarkState benchmarkState, final ThreadState threadState) {
         final long newV = threadState.getAndAdvanceLong();
@@ -0,0 +1,330 @@
+package stincmale.sandbox.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.RunnerException;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+
+/**
+ * Compares {@link Math} methods that either check for overflow or are intrinsified by C2
+ * with their plain counterparts.
+ * Operands are arranged the same way as in {@link PrimitiveDataTypeMathPerformanceBench}.
+ * <p>
+ * {@code *Exact*} benchmarks and their plain counterparts use {@link ExactThreadState},
+ * which allows controlling how often operations overflow.
+ * {@code *Exact*} benchmarks handle {@link ArithmeticException} by returning a constant,
+ * so with overflowing operands they measure the cost of throwing and catching the exception,
+ * which depends on whether the JVM omits stack traces of implicit exceptions
+ * ({@code -XX:+OmitStackTraceInFastThrow}).</p>
+ */
+public class CheckedArithmeticPerformanceBench {
+    // 2^6, must be a power of 2
+    private static final int NUMBER_OF_VALUES = 64;
+    private static final int[] OPERANDS_INT;
+    private static final long[] OPERANDS_LONG;
+    private static final double[] OPERANDS_DOUBLE;
+
+    static {
+        final Random rnd = new Random(1L);
+        OPERANDS_INT = new int[NUMBER_OF_VALUES * 2];
+        OPERANDS_LONG = new long[NUMBER_OF_VALUES];
+        OPERANDS_DOUBLE = new double[NUMBER_OF_VALUES];
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            // see PrimitiveDataTypeMathPerformanceBench for why the index is i * 2
+            OPERANDS_INT[i * 2] = nonZero(rnd.nextInt());
+            OPERANDS_LONG[i] = nonZero(rnd.nextLong());
+            OPERANDS_DOUBLE[i] = rnd.nextDouble() * 2 - 1;
+        }
+    }
+
+    public CheckedArithmeticPerformanceBench() {
+    }
+
+    @Test
+    public void run() throws RunnerException {
+        JmhRunner.run(newOptionsBuilder(opts -> opts.forks(10)
+                .warmupTime(milliseconds(100))
+                .warmupIterations(10)
+                .measurementTime(milliseconds(100))
+                .measurementIterations(3))
+                .include(includeBenchmarks(getClass()))
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .build());
+    }
+
+    @Benchmark
+    public int addInt(final ExactThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxInt(idx);
+        state.idx = nextIdx;
+        return state.operandsInt[idx] + state.operandsInt[nextIdx];
+    }
+
+    @Benchmark
+    public int addExactInt(final ExactThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxInt(idx);
+        state.idx = nextIdx;
+        try {
+            return Math.addExact(state.operandsInt[idx], state.operandsInt[nextIdx]);
+        } catch (final ArithmeticException e) {
+            return 0;
+        }
+    }
+
+    @Benchmark
+    public int multInt(final ExactThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxInt(idx);
+        state.idx = nextIdx;
+        return state.operandsInt[idx] * state.operandsInt[nextIdx];
+    }
+
+    @Benchmark
+    public int multiplyExactInt(final ExactThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxInt(idx);
+        state.idx = nextIdx;
+        try {
+            return Math.multiplyExact(state.operandsInt[idx], state.operandsInt[nextIdx]);
+        } catch (final ArithmeticException e) {
+            return 0;
+        }
+    }
+
+    @Benchmark
+    public long addLong(final ExactThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        return state.operandsLong[idx] + state.operandsLong[nextIdx];
+    }
+
+    @Benchmark
+    public long addExactLong(final ExactThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        try {
+            return Math.addExact(state.operandsLong[idx], state.operandsLong[nextIdx]);
+        } catch (final ArithmeticException e) {
+            return 0;
+        }
+    }
+
+    @Benchmark
+    public long multLong(final ExactThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        return state.operandsLong[idx] * state.operandsLong[nextIdx];
+    }
+
+    @Benchmark
+    public long multiplyExactLong(final ExactThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        try {
+            return Math.multiplyExact(state.operandsLong[idx], state.operandsLong[nextIdx]);
+        } catch (final ArithmeticException e) {
+            return 0;
+        }
+    }
+
+    @Benchmark
+    public long multiplyHigh(final ThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        return Math.multiplyHigh(OPERANDS_LONG[idx], OPERANDS_LONG[nextIdx]);
+    }
+
+    /**
+     * The same algorithm {@link Math#multiplyHigh(long, long)} uses when it is not intrinsified.
+     */
+    @Benchmark
+    public long multiplyHighManual(final ThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        final long x = OPERANDS_LONG[idx];
+        final long y = OPERANDS_LONG[nextIdx];
+        final long x1 = x >> 32;
+        final long x2 = x & 0xFFFFFFFFL;
+        final long y1 = y >> 32;
+        final long y2 = y & 0xFFFFFFFFL;
+        final long z2 = x2 * y2;
+        final long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        final long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    @Benchmark
+    public double fma(final ThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        return Math.fma(OPERANDS_DOUBLE[idx], OPERANDS_DOUBLE[nextIdx], OPERANDS_DOUBLE[idx]);
+    }
+
+    /**
+     * Unlike {@link #fma(ThreadState)}, rounds twice.
+     */
+    @Benchmark
+    public double multAdd(final ThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        return OPERANDS_DOUBLE[idx] * OPERANDS_DOUBLE[nextIdx] + OPERANDS_DOUBLE[idx];
+    }
+
+    @Benchmark
+    public long divLong(final ThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        return OPERANDS_LONG[idx] / OPERANDS_LONG[nextIdx];
+    }
+
+    @Benchmark
+    public long floorDivLong(final ThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        return Math.floorDiv(OPERANDS_LONG[idx], OPERANDS_LONG[nextIdx]);
+    }
+
+    @Benchmark
+    public int absIntManual(final ThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxInt(idx);
+        state.idx = nextIdx;
+        final int v = OPERANDS_INT[nextIdx];
+        return v < 0 ? -v : v;
+    }
+
+    @Benchmark
+    public int absInt(final ThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxInt(idx);
+        state.idx = nextIdx;
+        return Math.abs(OPERANDS_INT[nextIdx]);
+    }
+
+    @Benchmark
+    public long absLong(final ThreadState state) {
+        final int idx = state.idx;
+        final int nextIdx = nextIdxLong(idx);
+        state.idx = nextIdx;
+        return Math.abs(OPERANDS_LONG[nextIdx]);
+    }
+
+    private static final int nonZero(final int v) {
+        return v == 0 ? 1 : v;
+    }
+
+    private static final long nonZero(final long v) {
+        return v == 0 ? 1 : v;
+    }
+
+    private static final int nextIdx(final int idx, final int step) {
+        // (idx + step) % NUMBER_OF_VALUES
+        return (idx + step) & (NUMBER_OF_VALUES - 1);
+    }
+
+    private static final int nextIdxInt(final int idx) {
+        return nextIdx(idx, 2);
+    }
+
+    private static final int nextIdxLong(final int idx) {
+        return nextIdx(idx, 1);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int idx;
+
+        public ThreadState() {
+        }
+
+        @Setup(Level.Iteration)
+        public final void setup() {
+            idx = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ExactThreadState {
+        @Param({"NON_OVERFLOWING", "RARELY_OVERFLOWING", "OVERFLOWING"})
+        private Operands operands;
+        private int[] operandsInt;
+        private long[] operandsLong;
+        private int idx;
+
+        public ExactThreadState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setupTrial() {
+            final Random rnd = new Random(1L);
+            operandsInt = new int[NUMBER_OF_VALUES * 2];
+            operandsLong = new long[NUMBER_OF_VALUES];
+            for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+                final boolean overflowing = switch (operands) {
+                    case NON_OVERFLOWING -> false;
+                    case RARELY_OVERFLOWING -> i == 0;
+                    case OVERFLOWING -> true;
+                };
+                if (overflowing) {
+                    // any sum or product of two such values overflows
+                    operandsInt[i * 2] = Integer.MAX_VALUE - rnd.nextInt(1 << 10);
+                    operandsLong[i] = Long.MAX_VALUE - rnd.nextInt(1 << 10);
+                } else {
+                    // no sum or product of two such values overflows
+                    operandsInt[i * 2] = rnd.nextInt(-(1 << 15), 1 << 15);
+                    operandsLong[i] = rnd.nextLong(-(1L << 31), 1L << 31);
+                }
+            }
+            if (operands == Operands.RARELY_OVERFLOWING) {
+                // the operands paired with the overflowing one are positive and big enough
+                // for both their sum and product with it to overflow
+                operandsInt[nextIdxInt(0)] = rnd.nextInt(1 << 10, 1 << 15);
+                operandsInt[nextIdx(0, -2)] = rnd.nextInt(1 << 10, 1 << 15);
+                operandsLong[nextIdxLong(0)] = rnd.nextLong(1 << 10, 1L << 31);
+                operandsLong[nextIdx(0, -1)] = rnd.nextLong(1 << 10, 1L << 31);
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public final void setup() {
+            idx = 0;
+        }
+
+        public enum Operands {
+            NON_OVERFLOWING,
+            /**
+             * Only operations that involve one specific operand overflow,
+             * which is 2 out of every 32 {@code int} and 64 {@code long} operations.
+             * The operands that this operand is paired with are chosen so that
+             * both the sum and the product overflow.
+             */
+            RARELY_OVERFLOWING,
+            OVERFLOWING
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package stincmale.sandbox.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhResults;
+import static stincmale.sandbox.benchmarks.util.JmhResults.byJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.forEachJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.format;
+import static stincmale.sandbox.benchmarks.util.JmhResults.score;
+import static stincmale.sandbox.benchmarks.util.JmhResults.secondaryScore;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+
+/**
+ * Checks whether C2 eliminates short-lived allocations via escape analysis (EA) and
+ * scalar replacement for patterns found in hot code, e.g.,
+ * a stack element object allocated on each push, {@link Optional}/stream pipelines
+ * used to find an element, and a {@code new byte[1]} buffer.
+ * <p>
+ * {@link #run()} runs benchmarks with {@link GCProfiler} with and without EA, and reports
+ * the normalized allocation rate in bytes per operation. An allocation that EA eliminates
+ * disappears from the first column, but not from the second one; an allocation that shows up
+ * in both columns must be removed by hand if it is on a hot path.
+ * The expectations documented for each benchmark are for JDK 21.</p>
+ */
+public class EscapeAnalysisBench {
+    /**
+     * The number of values a benchmark cycles through, must be a power of two.
+     */
+    private static final int NUMBER_OF_VALUES = 1024;
+    private static final int NUMBER_OF_ATTRIBUTES = 10;
+
+    public EscapeAnalysisBench() {
+    }
+
+    @Test
+    public void run() throws RunnerException {
+        final Collection<RunResult> results = JmhRunner.run(newOptions().build());
+        final Collection<RunResult> resultsNoEa = JmhRunner.run(newOptions()
+                .jvmArgsAppend("-XX:-DoEscapeAnalysis")
+                .build());
+        final Map<String, List<RunResult>> resultsNoEaByJvm = byJvm(resultsNoEa);
+        forEachJvm(results, (jvm, jvmResults) -> printAllocation(
+                jvmResults, resultsNoEaByJvm.getOrDefault(jvm, List.of())));
+    }
+
+    /**
+     * The allocated object does not escape. Expected to be scalar-replaced.
+     */
+    @Benchmark
+    public int noEscape(final ThreadState state) {
+        final int v = state.nextValue();
+        final Element element = new Element(v, v + 1);
+        return element.leftmostIdx + element.h;
+    }
+
+    /**
+     * The allocated object is stored in a heap collection, like in a stack-based algorithm
+     * that pushes a new element object on each step. Expected to allocate.
+     */
+    @Benchmark
+    public int escapeToCollection(final ThreadState state) {
+        final int v = state.nextValue();
+        final ArrayDeque<Element> stack = state.stack;
+        stack.push(new Element(v, v + 1));
+        final Element element = stack.pop();
+        return element.leftmostIdx + element.h;
+    }
+
+    /**
+     * The allocated object is one of two objects allocated in different branches,
+     * which are merged into one variable.
+     * Expected to allocate because EA cannot scalar-replace an object referenced from a phi node,
+     * unless the JDK implements
+     * <a href="https://bugs.openjdk.org/browse/JDK-8287061">JDK-8287061</a>.
+     */
+    @Benchmark
+    public int controlFlowMerge(final ThreadState state) {
+        final int v = state.nextValue();
+        final Element element;
+        if ((v & 1) == 0) {
+            element = new Element(v, 1);
+        } else {
+            element = new Element(1, v);
+        }
+        return element.leftmostIdx + element.h;
+    }
+
+    /**
+     * The allocated object is passed to a method that is not inlined because C2 inlines recursive
+     * calls only {@code -XX:MaxRecursiveInlineLevel} times.
+     * This is the same kind of failure as with a call chain deeper than {@code -XX:MaxInlineLevel},
+     * or with a callee bigger than {@code -XX:FreqInlineSize}. Expected to allocate.
+     */
+    @Benchmark
+    public int notInlinedRecursiveCall(final ThreadState state) {
+        final int v = state.nextValue();
+        return recursiveSum(new Element(v, v + 1), 3);
+    }
+
+    /**
+     * The allocated object is passed to a monomorphic call site, which is inlined.
+     * Expected to be scalar-replaced.
+     */
+    @Benchmark
+    public int monomorphicCall(final ThreadState state) {
+        final int v = state.nextValue();
+        return state.monomorphicSink.accept(new Element(v, v + 1));
+    }
+
+    /**
+     * The allocated object is passed to a megamorphic call site, which is not inlined.
+     * Expected to allocate.
+     */
+    @Benchmark
+    public int megamorphicCall(final ThreadState state) {
+        final int v = state.nextValue();
+        return state.nextSink()
+                .accept(new Element(v, v + 1));
+    }
+
+    /**
+     * Finds an attribute via a stream pipeline, which allocates a stream, a spliterator,
+     * a lambda capturing the attribute type, and an {@link Optional}.
+     * Expected to allocate because the pipeline is too deep to be fully inlined.
+     */
+    @Benchmark
+    public int findViaStream(final ThreadState state) {
+        final int type = state.nextValue() % NUMBER_OF_ATTRIBUTES;
+        return state.attributes.stream()
+                .filter(attribute -> attribute.type == type)
+                .findAny()
+                .map(attribute -> attribute.value)
+                .orElse(-1);
+    }
+
+    /**
+     * Finds an attribute via a loop and wraps it in an {@link Optional},
+     * which is expected to be scalar-replaced.
+     */
+    @Benchmark
+    public int findViaLoopOptional(final ThreadState state) {
+        final int type = state.nextValue() % NUMBER_OF_ATTRIBUTES;
+        return Optional.ofNullable(findAttribute(state.attributes, type))
+                .map(attribute -> attribute.value)
+                .orElse(-1);
+    }
+
+    /**
+     * The allocation-free counterpart of {@link #findViaStream(ThreadState)}.
+     */
+    @Benchmark
+    public int findViaLoop(final ThreadState state) {
+        final int type = state.nextValue() % NUMBER_OF_ATTRIBUTES;
+        @Nullable
+        final Attribute attribute = findAttribute(state.attributes, type);
+        return attribute == null ? -1 : attribute.value;
+    }
+
+    /**
+     * A {@code new byte[1]} buffer read by an inlined method.
+     * Expected to be scalar-replaced.
+     */
+    @Benchmark
+    public int byteBufferInlinedRead(final ThreadState state) {
+        final byte[] buffer = new byte[1];
+        buffer[0] = (byte) state.nextValue();
+        return readInlined(buffer);
+    }
+
+    /**
+     * A {@code new byte[1]} buffer passed to a method that is not inlined,
+     * like {@link java.io.InputStream#read(byte[])} of a socket stream.
+     * Expected to allocate.
+     */
+    @Benchmark
+    public int byteBufferNotInlinedRead(final ThreadState state) {
+        final byte[] buffer = new byte[1];
+        buffer[0] = (byte) state.nextValue();
+        return readNotInlined(buffer);
+    }
+
+    /**
+     * An array whose length is not greater than {@code -XX:EliminateAllocationArraySizeLimit},
+     * which is 64 by default. Expected to be scalar-replaced.
+     */
+    @Benchmark
+    public long smallArray(final ThreadState state) {
+        final int v = state.nextValue();
+        final long[] arr = new long[64];
+        arr[0] = v;
+        arr[arr.length - 1] = v + 1;
+        return arr[0] + arr[arr.length - 1];
+    }
+
+    /**
+     * An array whose length is greater than {@code -XX:EliminateAllocationArraySizeLimit}.
+     * Expected to allocate.
+     */
+    @Benchmark
+    public long largeArray(final ThreadState state) {
+        final int v = state.nextValue();
+        final long[] arr = new long[65];
+        arr[0] = v;
+        arr[arr.length - 1] = v + 1;
+        return arr[0] + arr[arr.length - 1];
+    }
+
+    /**
+     * A {@link Long} outside the {@linkplain Long#valueOf(long) cache}.
+     * Expected to be eliminated.
+     */
+    @Benchmark
+    public long boxing(final ThreadState state) {
+        final Long boxed = Long.valueOf(state.nextValue() + 1_000_000L);
+        return boxed.longValue() * 2;
+    }
+
+    private static final ChainedOptionsBuilder newOptions() {
+        return newOptionsBuilder(opts -> opts.forks(2)
+                .warmupTime(milliseconds(200))
+                .warmupIterations(10)
+                .measurementTime(milliseconds(200))
+                .measurementIterations(5))
+                .include(includeBenchmarks(EscapeAnalysisBench.class))
+                .addProfiler(GCProfiler.class)
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS);
+    }
+
+    private static final void printAllocation(
+            final Collection<RunResult> results, final Collection<RunResult> resultsNoEa) {
+        final Map<String, RunResult> index = JmhResults.index(results, JmhResults::key);
+        final Map<String, RunResult> indexNoEa = JmhResults.index(resultsNoEa, JmhResults::key);
+        System.out.printf(Locale.ROOT, "%n# non-JMH: allocation, B/op%n");
+        System.out.printf(Locale.ROOT, "%-26s %10s %10s %10s%n",
+                "benchmark", "ns/op", "EA", "no EA");
+        results.stream()
+                .map(JmhResults::benchmarkMethodName)
+                .sorted()
+                .forEach(benchmark -> {
+                    final RunResult result = index.get(benchmark);
+                    @Nullable
+                    final RunResult resultNoEa = indexNoEa.get(benchmark);
+                    System.out.printf(Locale.ROOT, "%-26s %10.3f %10.1f %10s%n",
+                            benchmark,
+                            score(result),
+                            secondaryScore(result, "gc.alloc.rate.norm"),
+                            format(resultNoEa, "%.1f", noEaResult -> secondaryScore(
+                                    noEaResult, "gc.alloc.rate.norm")));
+                });
+    }
+
+    @Nullable
+    private static final Attribute findAttribute(final List<Attribute> attributes, final int type) {
+        for (int i = 0; i < attributes.size(); i++) {
+            final Attribute attribute = attributes.get(i);
+            if (attribute.type == type) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    private static final int recursiveSum(final Element element, final int depth) {
+        return depth == 0
+                ? element.leftmostIdx + element.h
+                : recursiveSum(element, depth - 1);
+    }
+
+    private static final int readInlined(final byte[] buffer) {
+        return buffer[0];
+    }
+
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static final int readNotInlined(final byte[] buffer) {
+        return buffer[0];
+    }
+
+    /**
+     * Similar to an element of a stack of rectangles in a largest rectangle algorithm.
+     */
+    private static final class Element {
+        private final int leftmostIdx;
+        private final int h;
+
+        private Element(final int leftmostIdx, final int h) {
+            this.leftmostIdx = leftmostIdx;
+            this.h = h;
+        }
+    }
+
+    /**
+     * Similar to an attribute of an App Store receipt.
+     */
+    private static final class Attribute {
+        private final int type;
+        private final int value;
+
+        private Attribute(final int type, final int value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    private interface Sink {
+        int accept(Element element);
+    }
+
+    private static final class SumSink implements Sink {
+        private SumSink() {
+        }
+
+        @Override
+        public int accept(final Element element) {
+            return element.leftmostIdx + element.h;
+        }
+    }
+
+    private static final class DifferenceSink implements Sink {
+        private DifferenceSink() {
+        }
+
+        @Override
+        public int accept(final Element element) {
+            return element.leftmostIdx - element.h;
+        }
+    }
+
+    private static final class ProductSink implements Sink {
+        private ProductSink() {
+        }
+
+        @Override
+        public int accept(final Element element) {
+            return element.leftmostIdx * element.h;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int[] values;
+        private List<Attribute> attributes;
+        private ArrayDeque<Element> stack;
+        private Sink monomorphicSink;
+        private Sink[] sinks;
+        private int idx;
+
+        public ThreadState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setupTrial() {
+            values = IntStream.range(0, NUMBER_OF_VALUES)
+                    .map(i -> (i * 31) & (NUMBER_OF_VALUES - 1))
+                    .toArray();
+            attributes = IntStream.range(0, NUMBER_OF_ATTRIBUTES)
+                    .mapToObj(type -> new Attribute(type, type * 10))
+                    .toList();
+            stack = new ArrayDeque<>();
+            monomorphicSink = new SumSink();
+            sinks = new Sink[] {new SumSink(), new DifferenceSink(), new ProductSink()};
+        }
+
+        @Setup(Level.Iteration)
+        public final void setup() {
+            idx = 0;
+        }
+
+        private int nextValue() {
+            return values[idx++ & (NUMBER_OF_VALUES - 1)];
+        }
+
+        private Sink nextSink() {
+            return sinks[idx % sinks.length];
+        }
+    }
+}
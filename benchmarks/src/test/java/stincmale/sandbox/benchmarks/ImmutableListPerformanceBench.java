@@ -0,0 +1,172 @@
+package stincmale.sandbox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.RunnerException;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import stincmale.sandbox.benchmarks.util.HeapFootprint;
+import stincmale.sandbox.benchmarks.util.ImmutableArrayList;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import static stincmale.sandbox.benchmarks.util.JmhResults.intParamValues;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+
+/**
+ * Compares ways of creating an immutable copy of a list, and reading the copy.
+ */
+public class ImmutableListPerformanceBench {
+    /**
+     * The number of indices/elements a benchmark cycles through, must be a power of two.
+     */
+    private static final int NUMBER_OF_PROBES = 1024;
+
+    public ImmutableListPerformanceBench() {
+    }
+
+    @Test
+    public void run() throws RunnerException {
+        JmhRunner.run(newOptionsBuilder(opts -> opts.forks(5)
+                .warmupTime(milliseconds(100))
+                .warmupIterations(10)
+                .measurementTime(milliseconds(100))
+                .measurementIterations(3))
+                .include(includeBenchmarks(getClass()))
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .build());
+    }
+
+    /**
+     * Prints the number of heap bytes retained by each kind of copy,
+     * excluding the elements, which are shared with the original list.
+     * This is not a JMH benchmark, and is run in the test JVM.
+     */
+    @Test
+    public void footprint() {
+        for (final int size : intParamValues(ThreadState.class, "size")) {
+            final List<Integer> original = ThreadState.original(size);
+            final int copies = Math.max(1, 1000_000 / size);
+            for (final ThreadState.ListDescriptor listDescriptor
+                    : ThreadState.ListDescriptor.values()) {
+                HeapFootprint.print(
+                        String.format(Locale.ROOT, "%s, size %d", listDescriptor, size),
+                        HeapFootprint.retainedBytes(() -> listDescriptor.copyOf(original), copies),
+                        size);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Integer> create(final ThreadState state) {
+        return state.listDescriptor.copyOf(state.original);
+    }
+
+    @Benchmark
+    public long iterate(final ThreadState state) {
+        long result = 0;
+        for (final Integer e : state.copy) {
+            result += e;
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Integer get(final ThreadState state) {
+        return state.copy.get(state.nextIndex());
+    }
+
+    /**
+     * Searches for an element that is present in the list, on average in its middle.
+     */
+    @Benchmark
+    public boolean contains(final ThreadState state) {
+        return state.copy.contains(state.nextElement());
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        @Param({"5", "50", "500", "5000", "50000"})
+        private int size;
+        @Param({"LIST_OF", "LIST_COPY_OF", "UNMODIFIABLE_ARRAY_LIST", "ARRAYS_AS_LIST",
+                "IMMUTABLE_ARRAY_LIST"})
+        private ListDescriptor listDescriptor;
+        private List<Integer> original;
+        private List<Integer> copy;
+        private int[] indices;
+        /**
+         * Elements equal to, but not the same as, the elements of {@link #copy},
+         * so that {@link List#contains(Object)} has to call {@link Object#equals(Object)}.
+         */
+        private Integer[] elements;
+        private int probeIdx;
+
+        public ThreadState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup() {
+            original = original(size);
+            copy = listDescriptor.copyOf(original);
+            final Random rnd = new Random(1L);
+            indices = rnd.ints(NUMBER_OF_PROBES, 0, size)
+                    .toArray();
+            elements = Arrays.stream(indices)
+                    .mapToObj(idx -> Integer.valueOf(original.get(idx)
+                            .intValue()))
+                    .toArray(Integer[]::new);
+        }
+
+        private int nextIndex() {
+            return indices[probeIdx++ & (NUMBER_OF_PROBES - 1)];
+        }
+
+        private Integer nextElement() {
+            return elements[probeIdx++ & (NUMBER_OF_PROBES - 1)];
+        }
+
+        /**
+         * Returns a mutable list of {@code size} distinct elements,
+         * none of which are {@linkplain Integer#valueOf(int) cached}.
+         */
+        private static final List<Integer> original(final int size) {
+            final List<Integer> result = new ArrayList<>(size);
+            IntStream.range(0, size)
+                    .forEach(i -> result.add(Integer.valueOf(1000 + i)));
+            return result;
+        }
+
+        public enum ListDescriptor {
+            LIST_OF(original -> List.of(original.toArray(new Integer[0]))),
+            LIST_COPY_OF(List::copyOf),
+            UNMODIFIABLE_ARRAY_LIST(original -> Collections.unmodifiableList(
+                    new ArrayList<>(original))),
+            ARRAYS_AS_LIST(original -> Arrays.asList(original.toArray(new Integer[0]))),
+            IMMUTABLE_ARRAY_LIST(ImmutableArrayList::copyOf);
+
+            private final Function<List<Integer>, List<Integer>> copier;
+
+            ListDescriptor(final Function<List<Integer>, List<Integer>> copier) {
+                this.copier = copier;
+            }
+
+            private List<Integer> copyOf(final List<Integer> original) {
+                return copier.apply(original);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package stincmale.sandbox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.RunnerException;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import stincmale.sandbox.benchmarks.util.AllocationFree;
+import stincmale.sandbox.benchmarks.util.AllocationFreeChecker;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhResults;
+import static stincmale.sandbox.benchmarks.util.JmhResults.forEachJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.format;
+import static stincmale.sandbox.benchmarks.util.JmhResults.key;
+import static stincmale.sandbox.benchmarks.util.JmhResults.score;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+import stincmale.sandbox.benchmarks.util.LatencyHistogram;
+
+/**
+ * Measures the overhead of recording a latency into {@link LatencyHistogram}
+ * depending on the number of concurrent writers, with a single stripe and with
+ * as many stripes as there are threads, in which case each thread writes to its own stripe,
+ * because only benchmark threads record values in a JVM forked by JMH.
+ * {@link #baseline(ThreadState)} measures the cost of producing the recorded values.
+ */
+public class LatencyHistogramBench {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+
+    public LatencyHistogramBench() {
+    }
+
+    /**
+     * Runs benchmarks for each number of threads in {@link #THREAD_COUNTS},
+     * and reports the recording overhead in ns.
+     */
+    @Test
+    public void run() throws RunnerException {
+        final List<RunResult> results = new ArrayList<>();
+        for (final int threads : THREAD_COUNTS) {
+            results.addAll(JmhRunner.run(newOptionsBuilder(opts -> opts.forks(3)
+                    .warmupTime(milliseconds(200))
+                    .warmupIterations(10)
+                    .measurementTime(milliseconds(200))
+                    .measurementIterations(3))
+                    .include(includeBenchmarks(getClass()))
+                    .threads(threads)
+                    .mode(Mode.AverageTime)
+                    .timeUnit(TimeUnit.NANOSECONDS)
+                    .build()));
+        }
+        forEachJvm(results, (jvm, jvmResults) -> printOverhead(jvmResults));
+    }
+
+    /**
+     * Verifies that recording does not allocate.
+     */
+    @Test
+    public final void allocationFree() throws RunnerException {
+        AllocationFreeChecker.check(getClass());
+    }
+
+    @Benchmark
+    @AllocationFree
+    public final long baseline(final ThreadState state) {
+        return state.nextValue();
+    }
+
+    @Benchmark
+    @AllocationFree
+    public final void recordSingleStripe(
+            final BenchmarkState benchmarkState, final ThreadState state) {
+        benchmarkState.singleStripe.record(state.nextValue());
+    }
+
+    @Benchmark
+    @AllocationFree
+    public final void recordStriped(final BenchmarkState benchmarkState, final ThreadState state) {
+        benchmarkState.striped.record(state.nextValue());
+    }
+
+    private static final void printOverhead(final Collection<RunResult> results) {
+        final Map<String, RunResult> index = JmhResults.index(results,
+                result -> key(result) + " " + result.getParams()
+                        .getThreads());
+        System.out.printf(Locale.ROOT, "%n# non-JMH: recording overhead, ns/op%n");
+        System.out.printf(Locale.ROOT, "%-20s", "benchmark");
+        for (final int threads : THREAD_COUNTS) {
+            System.out.printf(Locale.ROOT, " %10s", "threads=" + threads);
+        }
+        System.out.println();
+        for (final String benchmark : new String[] {"baseline", "recordSingleStripe",
+                "recordStriped"}) {
+            System.out.printf(Locale.ROOT, "%-20s", benchmark);
+            for (final int threads : THREAD_COUNTS) {
+                final RunResult result = index.get(key(benchmark) + " " + threads);
+                System.out.printf(Locale.ROOT, " %10s", format(result, "%.2f", JmhResults::score));
+            }
+            System.out.println();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+        private LatencyHistogram singleStripe;
+        private LatencyHistogram striped;
+
+        public BenchmarkState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup(final ThreadParams threadParams) {
+            final long maxValue = TimeUnit.HOURS.toNanos(1);
+            singleStripe = new LatencyHistogram(maxValue, 8, 1);
+            striped = new LatencyHistogram(maxValue, 8, threadParams.getThreadCount());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private static final int NUMBER_OF_VALUES = 1024;
+
+        /**
+         * Latencies in ns with a log-normal distribution, whose median is about 22 us.
+         */
+        private long[] values;
+        private int idx;
+
+        public ThreadState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup(final ThreadParams threadParams) {
+            final Random rnd = new Random(threadParams.getThreadIndex());
+            values = new long[NUMBER_OF_VALUES];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (long) Math.exp(10 + 1.5 * rnd.nextGaussian());
+            }
+            idx = 0;
+        }
+
+        private long nextValue() {
+            idx = (idx + 1) & (NUMBER_OF_VALUES - 1);
+            return values[idx];
+        }
+    }
+}
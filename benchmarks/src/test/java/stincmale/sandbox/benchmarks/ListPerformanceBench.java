@@ -1,27 +1,25 @@
 package stincmale.sandbox.benchmarks;
 
-import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.function.Supplier;
-import java.util.stream.Collectors;
-import static java.util.Arrays.stream;
-import static java.util.stream.IntStream.range;
+import javax.annotation.Nullable;
 import org.junit.jupiter.api.Test;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
-import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
 
 public class ListPerformanceBench {
     public ListPerformanceBench() {
@@ -29,17 +27,34 @@ public class ListPerformanceBench {
 
     @Test
     public void run() throws RunnerException {
-        new Runner(newOptionsBuilder(opts -> opts.forks(10)
+        JmhRunner.run(newOptionsBuilder(opts -> opts.forks(10)
                 .warmupTime(milliseconds(100))
                 .warmupIterations(12)
                 .measurementTime(milliseconds(100))
                 .measurementIterations(3))
-                .include(includeBenchmarks(getClass()))
+                .include(includeBenchmarks(getClass(), "\\.createAndFillViaAdd"))
                 .shouldDoGC(true)
                 .mode(Mode.Throughput)
                 .timeUnit(TimeUnit.MILLISECONDS)
-                .build())
-                .run();
+                .build());
+    }
+
+    /**
+     * Unlike {@link #run()}, does not make JMH call {@link System#gc()} between iterations,
+     * because a GC may relocate nodes of a {@link LinkedList},
+     * which must be controlled by {@link ThreadStateForIteratingLinkedList.HeapCompaction}.
+     */
+    @Test
+    public void runIterate() throws RunnerException {
+        JmhRunner.run(newOptionsBuilder(opts -> opts.forks(10)
+                .warmupTime(milliseconds(100))
+                .warmupIterations(12)
+                .measurementTime(milliseconds(100))
+                .measurementIterations(3))
+                .include(includeBenchmarks(getClass(), "\\.iterate"))
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .build());
     }
 
     @Benchmark
@@ -53,9 +68,17 @@ public class ListPerformanceBench {
     }
 
     @Benchmark
-    public boolean iterate(final ThreadStateForIterating state) {
+    public boolean iterateArrayList(final ThreadStateForIteratingArrayList state) {
+        return iterate(state.list);
+    }
+
+    @Benchmark
+    public boolean iterateLinkedList(final ThreadStateForIteratingLinkedList state) {
+        return iterate(state.list);
+    }
+
+    private static final boolean iterate(final List<Object> list) {
         boolean result = false;
-        final List<Object> list = state.listDescriptor.get(state.size);
         for (final Object o : list) {
             //noinspection IfStatementMissingBreakInLoop
             if (o == list) {
@@ -97,59 +120,143 @@ public class ListPerformanceBench {
     }
 
     @State(Scope.Thread)
-    public static class ThreadStateForIterating {
-        private static final Map<Integer, ArrayList<Object>> ARRAY_LISTS;
-        private static final Map<Integer, LinkedList<Object>> LINKED_LISTS;
-
-        static {
-            final int[] sizes;
-            try {
-                sizes = stream(ThreadStateForAdding.class.getDeclaredField("size")
-                        .getAnnotation(Param.class)
-                        .value())
-                        .mapToInt(Integer::parseInt)
-                        .toArray();
-            } catch (final NoSuchFieldException e) {
-                throw new RuntimeException(e);
+    public static class ThreadStateForIteratingArrayList {
+        @Param({"5", "50", "500", "5000", "50000"})
+        private int size;
+        private List<Object> list;
+
+        public ThreadStateForIteratingArrayList() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup() {
+            list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(new Object());
             }
-            ARRAY_LISTS = stream(sizes)
-                    .mapToObj(size -> new SimpleImmutableEntry<>(
-                            size, createList(size, ArrayList::new)))
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-            LINKED_LISTS = stream(sizes)
-                    .mapToObj(size -> new SimpleImmutableEntry<>(
-                            size, createList(size, LinkedList::new)))
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
         }
+    }
 
+    /**
+     * Unlike {@link ThreadStateForIteratingArrayList}, has the {@link NodeLayout}
+     * and {@link HeapCompaction} params, which do not affect an {@link ArrayList},
+     * as it does not have nodes, and {@link #iterateArrayList(ThreadStateForIteratingArrayList)}
+     * does not access the elements.
+     */
+    @State(Scope.Thread)
+    public static class ThreadStateForIteratingLinkedList {
         @Param({"5", "50", "500", "5000", "50000"})
         private int size;
-        @Param({"ARRAY_LIST", "LINKED_LIST"})
-        private ListDescriptor listDescriptor;
+        @Param({"SEQUENTIAL", "INTERLEAVED_GARBAGE", "INTERLEAVED_LIVE", "SHUFFLED"})
+        private NodeLayout nodeLayout;
+        @Param({"NONE", "FULL_GC"})
+        private HeapCompaction heapCompaction;
+        private List<Object> list;
+        private List<Object> liveUnrelatedObjects;
 
-        public ThreadStateForIterating() {
+        public ThreadStateForIteratingLinkedList() {
         }
 
-        private static final <L extends List<Object>> L createList(
-                final int size, final Supplier<L> listFactory) {
-            return range(0, size)
-                    .mapToObj(i -> new Object())
-                    .collect(Collectors.toCollection(listFactory));
+        @Setup(Level.Trial)
+        public final void setup() {
+            liveUnrelatedObjects = new ArrayList<>(size);
+            list = new LinkedList<>();
+            nodeLayout.fill(list, size, liveUnrelatedObjects);
+            if (heapCompaction == HeapCompaction.FULL_GC) {
+                System.gc();
+            }
         }
 
-        public enum ListDescriptor {
-            ARRAY_LIST(ARRAY_LISTS::get),
-            LINKED_LIST(LINKED_LISTS::get);
+        /**
+         * Specifies how the nodes of a {@link LinkedList} end up being placed in memory
+         * relative to each other.
+         */
+        public enum NodeLayout {
+            /**
+             * Nodes are allocated in the iteration order without any allocations in between,
+             * which is the layout one gets when a list is filled right after being created.
+             */
+            SEQUENTIAL {
+                @Override
+                void fill(
+                        final List<Object> list, final int size,
+                        final List<Object> liveUnrelatedObjects) {
+                    for (int i = 0; i < size; i++) {
+                        list.add(new Object());
+                    }
+                }
+            },
+            /**
+             * Nodes are allocated in the iteration order,
+             * but unrelated objects that become garbage immediately are allocated in between.
+             * A compacting GC is expected to remove the gaps between the nodes.
+             */
+            INTERLEAVED_GARBAGE {
+                @Override
+                void fill(
+                        final List<Object> list, final int size,
+                        final List<Object> liveUnrelatedObjects) {
+                    for (int i = 0; i < size; i++) {
+                        list.add(new Object());
+                        blackhole = new byte[UNRELATED_OBJECT_LENGTH];
+                    }
+                    blackhole = null;
+                }
+            },
+            /**
+             * Nodes are allocated in the iteration order,
+             * but unrelated objects that stay reachable are allocated in between.
+             * A compacting GC is not expected to remove the gaps between the nodes.
+             */
+            INTERLEAVED_LIVE {
+                @Override
+                void fill(
+                        final List<Object> list, final int size,
+                        final List<Object> liveUnrelatedObjects) {
+                    for (int i = 0; i < size; i++) {
+                        list.add(new Object());
+                        liveUnrelatedObjects.add(new byte[UNRELATED_OBJECT_LENGTH]);
+                    }
+                }
+            },
+            /**
+             * Nodes are allocated in an order that is a random permutation of the iteration order,
+             * which is what happens to a long-lived list that is modified in random positions.
+             */
+            SHUFFLED {
+                @Override
+                void fill(
+                        final List<Object> list, final int size,
+                        final List<Object> liveUnrelatedObjects) {
+                    final Random rnd = new Random(1L);
+                    for (int i = 0; i < size; i++) {
+                        list.add(rnd.nextInt(list.size() + 1), new Object());
+                    }
+                }
+            };
 
-            private final Function<Integer, List<Object>> supplierOfPreconstructed;
+            /**
+             * Together with the array header, such an array occupies 64 bytes,
+             * which is the size of a cache line on most modern CPUs.
+             */
+            private static final int UNRELATED_OBJECT_LENGTH = 48;
+            @Nullable
+            private static byte[] blackhole;
 
-            ListDescriptor(final Function<Integer, List<Object>> supplierOfPreconstructed) {
-                this.supplierOfPreconstructed = supplierOfPreconstructed;
-            }
+            abstract void fill(List<Object> list, int size, List<Object> liveUnrelatedObjects);
+        }
 
-            private final List<Object> get(final int size) {
-                return supplierOfPreconstructed.apply(size);
-            }
+        /**
+         * Specifies whether the heap is compacted after filling a list and before
+         * measuring {@link #iterateLinkedList(ThreadStateForIteratingLinkedList)}.
+         * Note that a GC that happens to occur during measurement may still relocate the nodes.
+         */
+        public enum HeapCompaction {
+            NONE,
+            /**
+             * {@link System#gc()} is called, which results in a full GC for most collectors.
+             */
+            FULL_GC
         }
     }
 }
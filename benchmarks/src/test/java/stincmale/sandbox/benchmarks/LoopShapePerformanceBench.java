@@ -0,0 +1,296 @@
+package stincmale.sandbox.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhResults;
+import static stincmale.sandbox.benchmarks.util.JmhResults.forEachJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.format;
+import static stincmale.sandbox.benchmarks.util.JmhResults.intParamValues;
+import static stincmale.sandbox.benchmarks.util.JmhResults.key;
+import static stincmale.sandbox.benchmarks.util.JmhResults.score;
+import static stincmale.sandbox.benchmarks.util.JmhResults.secondaryScore;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+import stincmale.sandbox.benchmarks.util.TimeToSafepointProfiler;
+
+/**
+ * Compares loops with identical bodies, which sum elements of a {@code long[]},
+ * but different shapes, which affect whether C2 treats a loop as a counted loop.
+ * Counted loops are subject to optimizations like unrolling, range check elimination,
+ * vectorization and loop strip mining.
+ * <ul>
+ *     <li>{@code int} induction variable with a constant stride,
+ *     which is the canonical counted loop.</li>
+ *     <li>{@code long} induction variable with a constant stride, which C2 treats as a counted
+ *     loop only since JDK 16, by splitting it into an outer loop and an inner {@code int} loop
+ *     (<a href="https://bugs.openjdk.org/browse/JDK-8223051">JDK-8223051</a>).</li>
+ *     <li>{@code int}/{@code long} induction variable with a stride that is loop-invariant
+ *     but not constant, which makes the loop non-counted.</li>
+ * </ul>
+ * <p>
+ * Each loop is run with different {@link SafepointPolling} options:
+ * C2 places a safepoint poll in each iteration of a non-counted loop,
+ * and, by default, in each {@code LoopStripMiningIter} iterations of a counted loop.
+ * {@link #run()} reports the time per element, while {@link #runTimeToSafepoint()}
+ * reports how long it takes a thread running a long loop to reach a safepoint.</p>
+ */
+public class LoopShapePerformanceBench {
+    private static final String LONG_LOOP_LENGTH = "10000000";
+    private static final String SAFEPOINT_INTERVAL_MICROS = "1000";
+    private static final String[] BENCHMARKS = {"intInduction", "longInduction",
+            "intInductionNonConstantStride", "longInductionNonConstantStride"};
+
+    public LoopShapePerformanceBench() {
+    }
+
+    /**
+     * Runs benchmarks for each {@link SafepointPolling}, and reports the time per element in ns.
+     */
+    @Test
+    public void run() throws RunnerException {
+        final List<RunResult> results = new ArrayList<>();
+        for (final SafepointPolling polling : SafepointPolling.values()) {
+            results.addAll(JmhRunner.run(newOptions(polling).build()));
+        }
+        forEachJvm(results, (jvm, jvmResults) -> printTimePerElement(jvmResults));
+    }
+
+    /**
+     * Runs benchmarks for each {@link SafepointPolling} on a long array while another thread
+     * requests a safepoint every {@value #SAFEPOINT_INTERVAL_MICROS} µs,
+     * and reports time-to-safepoint (TTSP) percentiles collected by
+     * {@link TimeToSafepointProfiler}.
+     */
+    @Test
+    public void runTimeToSafepoint() throws RunnerException {
+        final List<RunResult> results = new ArrayList<>();
+        for (final SafepointPolling polling : SafepointPolling.values()) {
+            results.addAll(JmhRunner.run(newOptions(polling)
+                    .param("length", LONG_LOOP_LENGTH)
+                    .param("safepointIntervalMicros", SAFEPOINT_INTERVAL_MICROS)
+                    .addProfiler(TimeToSafepointProfiler.class)
+                    .build()));
+        }
+        forEachJvm(results, (jvm, jvmResults) -> printTimeToSafepoint(jvmResults));
+    }
+
+    @Benchmark
+    public long intInduction(final ThreadState state) {
+        final long[] arr = state.arr;
+        final int length = arr.length;
+        long result = 0;
+        for (int i = 0; i < length; i++) {
+            result += arr[i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long longInduction(final ThreadState state) {
+        final long[] arr = state.arr;
+        final long length = arr.length;
+        long result = 0;
+        for (long i = 0; i < length; i++) {
+            result += arr[(int) i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long intInductionNonConstantStride(final ThreadState state) {
+        final long[] arr = state.arr;
+        final int length = arr.length;
+        final int stride = state.stride;
+        long result = 0;
+        for (int i = 0; i < length; i += stride) {
+            result += arr[i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long longInductionNonConstantStride(final ThreadState state) {
+        final long[] arr = state.arr;
+        final long length = arr.length;
+        final long stride = state.stride;
+        long result = 0;
+        for (long i = 0; i < length; i += stride) {
+            result += arr[(int) i];
+        }
+        return result;
+    }
+
+    private static final ChainedOptionsBuilder newOptions(final SafepointPolling polling) {
+        return newOptionsBuilder(opts -> opts.forks(3)
+                .warmupTime(milliseconds(100))
+                .warmupIterations(10)
+                .measurementTime(milliseconds(100))
+                .measurementIterations(5))
+                .include(includeBenchmarks(LoopShapePerformanceBench.class))
+                .jvmArgsAppend(polling.jvmArgs)
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS);
+    }
+
+    private static final void printTimePerElement(final Collection<RunResult> results) {
+        final Map<String, RunResult> index = JmhResults.index(results,
+                result -> key(result, "length") + " " + SafepointPolling.of(result));
+        System.out.printf(Locale.ROOT, "%n# non-JMH: time per element, ns%n");
+        System.out.printf(Locale.ROOT, "%-32s %10s", "benchmark", "length");
+        for (final SafepointPolling polling : SafepointPolling.values()) {
+            System.out.printf(Locale.ROOT, " %26s", polling);
+        }
+        System.out.println();
+        for (final String benchmark : BENCHMARKS) {
+            for (final int length : intParamValues(ThreadState.class, "length")) {
+                System.out.printf(Locale.ROOT, "%-32s %10d", benchmark, length);
+                for (final SafepointPolling polling : SafepointPolling.values()) {
+                    final RunResult result = index.get(key(benchmark, length) + " " + polling);
+                    System.out.printf(Locale.ROOT, " %26s",
+                            format(result, "%.3f", pollingResult -> score(pollingResult) / length));
+                }
+                System.out.println();
+            }
+        }
+    }
+
+    private static final void printTimeToSafepoint(final Collection<RunResult> results) {
+        final Map<String, RunResult> index = JmhResults.index(results,
+                result -> key(result) + " " + SafepointPolling.of(result));
+        System.out.printf(Locale.ROOT, "%n# non-JMH: time-to-safepoint, ms, length %s%n",
+                LONG_LOOP_LENGTH);
+        System.out.printf(Locale.ROOT, "%-32s %-26s %8s %8s %8s %8s%n",
+                "benchmark", "polling", "count", "p0.50", "p0.99", "max");
+        for (final String benchmark : BENCHMARKS) {
+            for (final SafepointPolling polling : SafepointPolling.values()) {
+                final RunResult result = index.get(key(benchmark) + " " + polling);
+                if (result == null) {
+                    // not all benchmarks were run
+                    continue;
+                }
+                System.out.printf(Locale.ROOT, "%-32s %-26s %8.0f %8.3f %8.3f %8.3f%n",
+                        benchmark, polling,
+                        secondaryScore(result, "ttsp.count"),
+                        secondaryScore(result, "ttsp.p0.50"),
+                        secondaryScore(result, "ttsp.p0.99"),
+                        secondaryScore(result, "ttsp.max"));
+            }
+        }
+    }
+
+    public enum SafepointPolling {
+        /**
+         * Counted loops poll once per {@code LoopStripMiningIter} iterations,
+         * which is 1000 by default in modern JDKs with any GC except for Serial and Parallel.
+         */
+        DEFAULT(),
+        /**
+         * Counted loops poll in each iteration, i.e., loop strip mining is disabled,
+         * which is what JDKs before 10 did with {@code -XX:+UseCountedLoopSafepoints}.
+         */
+        POLL_EACH_ITERATION("-XX:LoopStripMiningIter=1"),
+        /**
+         * Counted loops do not poll, which results in the shortest loops,
+         * but a long counted loop delays a safepoint until it exits.
+         */
+        NO_COUNTED_LOOP_POLLS("-XX:-UseCountedLoopSafepoints", "-XX:LoopStripMiningIter=0");
+
+        private final String[] jvmArgs;
+
+        SafepointPolling(final String... jvmArgs) {
+            this.jvmArgs = jvmArgs;
+        }
+
+        /**
+         * Returns the {@link SafepointPolling} the {@code result} was produced with.
+         */
+        private static SafepointPolling of(final RunResult result) {
+            final Collection<String> jvmArgs = result.getParams()
+                    .getJvmArgs();
+            for (final SafepointPolling polling : values()) {
+                if (polling.jvmArgs.length > 0 && jvmArgs.containsAll(List.of(polling.jvmArgs))) {
+                    return polling;
+                }
+            }
+            return DEFAULT;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        @Param({"1000", LONG_LOOP_LENGTH})
+        private int length;
+        /**
+         * If positive, a safepoint is requested with this interval during a trial.
+         */
+        @Param({"0"})
+        private long safepointIntervalMicros;
+        private long[] arr;
+        /**
+         * Always 1, but not a compile-time constant.
+         */
+        private int stride;
+        @Nullable
+        private Thread safepointRequester;
+
+        public ThreadState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup() {
+            arr = new long[length];
+            Arrays.setAll(arr, i -> i);
+            stride = 1;
+            if (safepointIntervalMicros > 0) {
+                safepointRequester = new Thread(() -> requestSafepoints(safepointIntervalMicros),
+                        "safepoint-requester");
+                safepointRequester.setDaemon(true);
+                safepointRequester.start();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public final void tearDown() throws InterruptedException {
+            if (safepointRequester != null) {
+                safepointRequester.interrupt();
+                safepointRequester.join();
+                safepointRequester = null;
+            }
+        }
+
+        /**
+         * Dumping threads is a VM operation that requires a global safepoint.
+         */
+        private static final void requestSafepoints(final long intervalMicros) {
+            final ThreadMXBean threadMxBean = ManagementFactory.getThreadMXBean();
+            while (!Thread.currentThread()
+                    .isInterrupted()) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(intervalMicros));
+                threadMxBean.dumpAllThreads(false, false);
+            }
+        }
+    }
+}
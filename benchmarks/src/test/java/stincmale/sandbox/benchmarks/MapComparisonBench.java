@@ -0,0 +1,509 @@
+package stincmale.sandbox.benchmarks;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.RunnerException;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import stincmale.sandbox.benchmarks.util.HeapFootprint;
+import stincmale.sandbox.benchmarks.util.IntObjectOpenHashMap;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import static stincmale.sandbox.benchmarks.util.JmhResults.intParamValues;
+import static stincmale.sandbox.benchmarks.util.JmhResults.paramValues;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+import stincmale.sandbox.benchmarks.util.LongLongOpenHashMap;
+
+/**
+ * Compares {@link IntObjectOpenHashMap} and {@link LongLongOpenHashMap}
+ * with {@link HashMap}, {@link TreeMap} and {@link ConcurrentHashMap}.
+ * <p>
+ * {@link #put(IntObjectMapState)} and {@link #remove(IntObjectMapState)} (as well as their
+ * {@code long} counterparts) restore the contents of a map after modifying it,
+ * so that the size of the map does not change during a benchmark:
+ * a missing {@code put} is followed by {@code remove}, and a hitting {@code remove}
+ * is followed by {@code put}. Therefore, scores for these benchmarks with {@code hitRate} 0
+ * (for {@code put}) and 100 (for {@code remove}) are the sums of the costs of both operations.</p>
+ * <p>
+ * Hash tables have power-of-two capacities, so maps are not sized for a number of mappings,
+ * which would result in about the same actual load for any {@code loadFactor}.
+ * Instead, the number of mappings is derived from the {@code capacity}
+ * and the {@code loadFactor}, see {@link #size(int, float)}.
+ * {@link ConcurrentHashMap} uses the load factor only for initial sizing, and grows
+ * when it is 3/4 full, hence it cannot be loaded more than that.</p>
+ */
+public class MapComparisonBench {
+    private static final Object VALUE = new Object();
+    private static final long SEED = 1L;
+    /**
+     * The number of keys a benchmark cycles through, must be a power of two.
+     */
+    private static final int NUMBER_OF_PROBES = 1024;
+
+    public MapComparisonBench() {
+    }
+
+    @Test
+    public void run() throws RunnerException {
+        JmhRunner.run(newOptionsBuilder(opts -> opts.forks(3)
+                .warmupTime(milliseconds(100))
+                .warmupIterations(5)
+                .measurementTime(milliseconds(100))
+                .measurementIterations(3))
+                .include(includeBenchmarks(getClass()))
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .build());
+    }
+
+    /**
+     * Prints the number of heap bytes per mapping retained by each map implementation.
+     * This is not a JMH benchmark, and is run in the test JVM.
+     */
+    @Test
+    public void footprint() {
+        final String[] loadFactors = paramValues(IntObjectMapState.class, "loadFactor");
+        for (final int capacity : intParamValues(IntObjectMapState.class, "capacity")) {
+            for (final String loadFactorValue : loadFactors) {
+                final float loadFactor = Float.parseFloat(loadFactorValue);
+                final boolean firstLoadFactor = loadFactorValue.equals(loadFactors[0]);
+                final int size = size(capacity, loadFactor);
+                final Random rnd = new Random(SEED);
+                final long[] keys = presentAndProbeKeys(size, 0, rnd::nextInt)[0];
+                final int copies = Math.max(1, 1000_000 / size);
+                for (final IntObjectMapState.Implementation implementation
+                        : IntObjectMapState.Implementation.values()) {
+                    if (implementation == IntObjectMapState.Implementation.TREE_MAP
+                            && !firstLoadFactor) {
+                        // TreeMap ignores the load factor
+                        continue;
+                    }
+                    HeapFootprint.print(
+                            footprintLabel("int->Object", implementation, capacity, loadFactor),
+                            HeapFootprint.retainedBytes(
+                                    () -> IntObjectMapState.createMap(
+                                            implementation, keys, capacity, loadFactor),
+                                    copies),
+                            size);
+                }
+                for (final LongLongMapState.Implementation implementation
+                        : LongLongMapState.Implementation.values()) {
+                    if (implementation == LongLongMapState.Implementation.TREE_MAP
+                            && !firstLoadFactor) {
+                        // TreeMap ignores the load factor
+                        continue;
+                    }
+                    HeapFootprint.print(
+                            footprintLabel("long->long", implementation, capacity, loadFactor),
+                            HeapFootprint.retainedBytes(
+                                    () -> LongLongMapState.createMap(
+                                            implementation, keys, capacity, loadFactor),
+                                    copies),
+                            size);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @Nullable
+    public Object get(final IntObjectMapState state) {
+        return state.map.get(state.nextProbe());
+    }
+
+    @Benchmark
+    @Nullable
+    public Object put(final IntObjectMapState state) {
+        final int key = state.nextProbe();
+        final IntObjectMap map = state.map;
+        final Object result = map.put(key, VALUE);
+        if (result == null) {
+            map.remove(key);
+        }
+        return result;
+    }
+
+    @Benchmark
+    @Nullable
+    public Object remove(final IntObjectMapState state) {
+        final int key = state.nextProbe();
+        final IntObjectMap map = state.map;
+        final Object result = map.remove(key);
+        if (result != null) {
+            map.put(key, result);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long getLong(final LongLongMapState state) {
+        return state.map.get(state.nextProbe());
+    }
+
+    @Benchmark
+    public long putLong(final LongLongMapState state) {
+        final long key = state.nextProbe();
+        final LongLongMap map = state.map;
+        final long result = map.put(key, key);
+        if (result == LongLongMap.ABSENT) {
+            map.remove(key);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long removeLong(final LongLongMapState state) {
+        final long key = state.nextProbe();
+        final LongLongMap map = state.map;
+        final long result = map.remove(key);
+        if (result != LongLongMap.ABSENT) {
+            map.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns two arrays: {@code size} distinct non-zero keys to be put in a map,
+     * and {@link #NUMBER_OF_PROBES} keys to look up in the map in a random order,
+     * {@code hitRate} percent of which are present in the map, and the rest are not.
+     */
+    private static final long[][] presentAndProbeKeys(
+            final int size, final int hitRate, final LongSupplier randomKey) {
+        final Set<Long> uniqueKeys = new HashSet<>();
+        final long[] present = new long[size];
+        for (int i = 0; i < size;) {
+            final long key = randomKey.getAsLong();
+            if (key != 0 && uniqueKeys.add(key)) {
+                present[i++] = key;
+            }
+        }
+        final Random rnd = new Random(SEED);
+        final long[] probes = new long[NUMBER_OF_PROBES];
+        final int numberOfHits = NUMBER_OF_PROBES * hitRate / 100;
+        for (int i = 0; i < NUMBER_OF_PROBES;) {
+            if (i < numberOfHits) {
+                probes[i++] = present[rnd.nextInt(size)];
+            } else {
+                final long key = randomKey.getAsLong();
+                if (key != 0 && !uniqueKeys.contains(key)) {
+                    probes[i++] = key;
+                }
+            }
+        }
+        // Fisher–Yates shuffle, so that hits and misses are not predictable
+        for (int i = probes.length - 1; i > 0; i--) {
+            final int j = rnd.nextInt(i + 1);
+            final long tmp = probes[i];
+            probes[i] = probes[j];
+            probes[j] = tmp;
+        }
+        return new long[][] {present, probes};
+    }
+
+    /**
+     * Returns the number of mappings that load a hash table with the specified {@code capacity}
+     * according to the {@code loadFactor}, minus one, so that {@code put} of a missing key
+     * does not make the table grow.
+     */
+    private static final int size(final int capacity, final float loadFactor) {
+        return (int) (capacity * loadFactor) - 1;
+    }
+
+    private static final String footprintLabel(
+            final String types, final Enum<?> implementation,
+            final int capacity, final float loadFactor) {
+        return implementation.name()
+                .equals("TREE_MAP")
+                ? String.format(Locale.ROOT, "%s %s, size %d",
+                        types, implementation, size(capacity, loadFactor))
+                : String.format(Locale.ROOT, "%s %s, capacity %d, loadFactor %s",
+                        types, implementation, capacity, loadFactor);
+    }
+
+    /**
+     * Operations of a map with {@code int} keys that are benchmarked.
+     */
+    public interface IntObjectMap {
+        @Nullable
+        Object get(int key);
+
+        @Nullable
+        Object put(int key, Object value);
+
+        @Nullable
+        Object remove(int key);
+    }
+
+    /**
+     * Operations of a map with {@code long} keys and {@code long} values that are benchmarked.
+     * Missing mappings are reported via {@link #ABSENT}.
+     */
+    public interface LongLongMap {
+        long ABSENT = Long.MIN_VALUE;
+
+        long get(long key);
+
+        long put(long key, long value);
+
+        long remove(long key);
+    }
+
+    @State(Scope.Thread)
+    public static class IntObjectMapState {
+        /**
+         * The capacity of hash tables, must be a power of two.
+         */
+        @Param({"1024", "1048576"})
+        private int capacity;
+        @Param({"0.5", "0.75", "0.9"})
+        private float loadFactor;
+        @Param({"0", "50", "100"})
+        private int hitRate;
+        @Param({"HASH_MAP", "TREE_MAP", "CONCURRENT_HASH_MAP", "OPEN_ADDRESSING"})
+        private Implementation implementation;
+        private IntObjectMap map;
+        private int[] probes;
+        private int probeIdx;
+
+        public IntObjectMapState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup() {
+            final Random rnd = new Random(SEED);
+            final long[][] keys = presentAndProbeKeys(
+                    size(capacity, loadFactor), hitRate, rnd::nextInt);
+            map = createMap(implementation, keys[0], capacity, loadFactor);
+            probes = new int[keys[1].length];
+            for (int i = 0; i < probes.length; i++) {
+                probes[i] = (int) keys[1][i];
+            }
+        }
+
+        private int nextProbe() {
+            return probes[probeIdx++ & (NUMBER_OF_PROBES - 1)];
+        }
+
+        private static final IntObjectMap createMap(
+                final Implementation implementation, final long[] keys,
+                final int capacity, final float loadFactor) {
+            final IntObjectMap result = implementation.create(keys.length, capacity, loadFactor);
+            for (final long key : keys) {
+                result.put((int) key, VALUE);
+            }
+            return result;
+        }
+
+        public enum Implementation {
+            HASH_MAP {
+                @Override
+                IntObjectMap create(
+                        final int expectedSize, final int capacity, final float loadFactor) {
+                    return ofJdkMap(new HashMap<>(capacity, loadFactor));
+                }
+            },
+            TREE_MAP {
+                @Override
+                IntObjectMap create(
+                        final int expectedSize, final int capacity, final float loadFactor) {
+                    return ofJdkMap(new TreeMap<>());
+                }
+            },
+            CONCURRENT_HASH_MAP {
+                @Override
+                IntObjectMap create(
+                        final int expectedSize, final int capacity, final float loadFactor) {
+                    // the initial capacity is the number of mappings to accommodate
+                    return ofJdkMap(new ConcurrentHashMap<>(expectedSize, loadFactor));
+                }
+            },
+            OPEN_ADDRESSING {
+                @Override
+                IntObjectMap create(
+                        final int expectedSize, final int capacity, final float loadFactor) {
+                    final IntObjectOpenHashMap<Object> map =
+                            new IntObjectOpenHashMap<>(expectedSize, loadFactor);
+                    return new IntObjectMap() {
+                        @Override
+                        public Object get(final int key) {
+                            return map.get(key);
+                        }
+
+                        @Override
+                        public Object put(final int key, final Object value) {
+                            return map.put(key, value);
+                        }
+
+                        @Override
+                        public Object remove(final int key) {
+                            return map.remove(key);
+                        }
+                    };
+                }
+            };
+
+            /**
+             * Creates a map for {@code expectedSize} mappings, whose hash table, if any,
+             * has the specified {@code capacity}.
+             */
+            abstract IntObjectMap create(int expectedSize, int capacity, float loadFactor);
+
+            private static IntObjectMap ofJdkMap(final Map<Integer, Object> map) {
+                return new IntObjectMap() {
+                    @Override
+                    public Object get(final int key) {
+                        return map.get(key);
+                    }
+
+                    @Override
+                    public Object put(final int key, final Object value) {
+                        return map.put(key, value);
+                    }
+
+                    @Override
+                    public Object remove(final int key) {
+                        return map.remove(key);
+                    }
+                };
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LongLongMapState {
+        /**
+         * The capacity of hash tables, must be a power of two.
+         */
+        @Param({"1024", "1048576"})
+        private int capacity;
+        @Param({"0.5", "0.75", "0.9"})
+        private float loadFactor;
+        @Param({"0", "50", "100"})
+        private int hitRate;
+        @Param({"HASH_MAP", "TREE_MAP", "CONCURRENT_HASH_MAP", "OPEN_ADDRESSING"})
+        private Implementation implementation;
+        private LongLongMap map;
+        private long[] probes;
+        private int probeIdx;
+
+        public LongLongMapState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup() {
+            final Random rnd = new Random(SEED);
+            final long[][] keys = presentAndProbeKeys(size(capacity, loadFactor), hitRate,
+                    () -> rnd.nextLong() & ~LongLongMap.ABSENT);
+            map = createMap(implementation, keys[0], capacity, loadFactor);
+            probes = keys[1];
+        }
+
+        private long nextProbe() {
+            return probes[probeIdx++ & (NUMBER_OF_PROBES - 1)];
+        }
+
+        private static final LongLongMap createMap(
+                final Implementation implementation, final long[] keys,
+                final int capacity, final float loadFactor) {
+            final LongLongMap result = implementation.create(keys.length, capacity, loadFactor);
+            for (final long key : keys) {
+                result.put(key, key);
+            }
+            return result;
+        }
+
+        public enum Implementation {
+            HASH_MAP {
+                @Override
+                LongLongMap create(
+                        final int expectedSize, final int capacity, final float loadFactor) {
+                    return ofJdkMap(new HashMap<>(capacity, loadFactor));
+                }
+            },
+            TREE_MAP {
+                @Override
+                LongLongMap create(
+                        final int expectedSize, final int capacity, final float loadFactor) {
+                    return ofJdkMap(new TreeMap<>());
+                }
+            },
+            CONCURRENT_HASH_MAP {
+                @Override
+                LongLongMap create(
+                        final int expectedSize, final int capacity, final float loadFactor) {
+                    // the initial capacity is the number of mappings to accommodate
+                    return ofJdkMap(new ConcurrentHashMap<>(expectedSize, loadFactor));
+                }
+            },
+            OPEN_ADDRESSING {
+                @Override
+                LongLongMap create(
+                        final int expectedSize, final int capacity, final float loadFactor) {
+                    final LongLongOpenHashMap map =
+                            new LongLongOpenHashMap(expectedSize, loadFactor, LongLongMap.ABSENT);
+                    return new LongLongMap() {
+                        @Override
+                        public long get(final long key) {
+                            return map.get(key);
+                        }
+
+                        @Override
+                        public long put(final long key, final long value) {
+                            return map.put(key, value);
+                        }
+
+                        @Override
+                        public long remove(final long key) {
+                            return map.remove(key);
+                        }
+                    };
+                }
+            };
+
+            /**
+             * Creates a map for {@code expectedSize} mappings, whose hash table, if any,
+             * has the specified {@code capacity}.
+             */
+            abstract LongLongMap create(int expectedSize, int capacity, float loadFactor);
+
+            private static LongLongMap ofJdkMap(final Map<Long, Long> map) {
+                return new LongLongMap() {
+                    @Override
+                    public long get(final long key) {
+                        return unbox(map.get(key));
+                    }
+
+                    @Override
+                    public long put(final long key, final long value) {
+                        return unbox(map.put(key, value));
+                    }
+
+                    @Override
+                    public long remove(final long key) {
+                        return unbox(map.remove(key));
+                    }
+                };
+            }
+
+            private static long unbox(@Nullable final Long value) {
+                return value == null ? LongLongMap.ABSENT : value;
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package stincmale.sandbox.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.RunnerException;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhResults;
+import static stincmale.sandbox.benchmarks.util.JmhResults.forEachJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.format;
+import static stincmale.sandbox.benchmarks.util.JmhResults.key;
+import static stincmale.sandbox.benchmarks.util.JmhResults.longParamValues;
+import static stincmale.sandbox.benchmarks.util.JmhResults.score;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+
+/**
+ * Maps read, write and copy bandwidth for working sets from 4 KiB to 1 GiB,
+ * which shows the bandwidth of each cache level and of the main memory,
+ * and how it scales with the number of threads.
+ * <p>
+ * A working set is a {@code long[]} shared by all threads, each of which accesses
+ * its own disjoint slice of it. A benchmark operation accesses each element of a slice once:
+ * {@link #copy(ThreadState)} reads the first half of the slice and writes to the second half.
+ * Therefore, the total number of bytes accessed by all threads per operation
+ * is always equal to the working set size, and the aggregate bandwidth is
+ * the working set size divided by the average operation time.</p>
+ */
+public class MemoryBandwidthBench {
+    private static final Path CPU0_CACHE_DIR = Path.of("/sys/devices/system/cpu/cpu0/cache");
+
+    public MemoryBandwidthBench() {
+    }
+
+    /**
+     * Runs benchmarks for each number of threads from 1 to the number of available processors,
+     * and reports bandwidth in GB/s.
+     */
+    @Test
+    public void run() throws RunnerException {
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+        final List<RunResult> results = new ArrayList<>();
+        final int[] threadCounts = threadCounts(availableProcessors);
+        for (final int threads : threadCounts) {
+            results.addAll(JmhRunner.run(newOptionsBuilder(opts -> opts.forks(2)
+                    .warmupTime(milliseconds(200))
+                    .warmupIterations(5)
+                    .measurementTime(milliseconds(200))
+                    .measurementIterations(3))
+                    .include(includeBenchmarks(getClass()))
+                    .threads(threads)
+                    .mode(Mode.AverageTime)
+                    .timeUnit(TimeUnit.NANOSECONDS)
+                    .build()));
+        }
+        forEachJvm(results, (jvm, jvmResults) -> printBandwidth(threadCounts, jvmResults));
+    }
+
+    @Benchmark
+    public long read(final ThreadState state) {
+        final long[] arr = state.arr;
+        final int from = state.from;
+        final int length = state.to - from;
+        long result = 0;
+        switch (state.pattern) {
+            case SEQUENTIAL -> {
+                for (int i = from; i < from + length; i++) {
+                    result += arr[i];
+                }
+            }
+            case STRIDED -> {
+                for (int offset = 0; offset < AccessPattern.STRIDE; offset++) {
+                    for (int i = from + offset; i < from + length; i += AccessPattern.STRIDE) {
+                        result += arr[i];
+                    }
+                }
+            }
+            case RANDOM -> {
+                final int mask = AccessPattern.randomMask(length);
+                for (int i = 0, x = 0; i < length; x = AccessPattern.nextRandom(x, mask)) {
+                    if (x < length) {
+                        result += arr[from + x];
+                        i++;
+                    }
+                }
+            }
+            default -> throw new AssertionError(state.pattern);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void write(final ThreadState state) {
+        final long[] arr = state.arr;
+        final int from = state.from;
+        final int length = state.to - from;
+        switch (state.pattern) {
+            case SEQUENTIAL -> {
+                for (int i = from; i < from + length; i++) {
+                    arr[i] = i;
+                }
+            }
+            case STRIDED -> {
+                for (int offset = 0; offset < AccessPattern.STRIDE; offset++) {
+                    for (int i = from + offset; i < from + length; i += AccessPattern.STRIDE) {
+                        arr[i] = i;
+                    }
+                }
+            }
+            case RANDOM -> {
+                final int mask = AccessPattern.randomMask(length);
+                for (int i = 0, x = 0; i < length; x = AccessPattern.nextRandom(x, mask)) {
+                    if (x < length) {
+                        arr[from + x] = x;
+                        i++;
+                    }
+                }
+            }
+            default -> throw new AssertionError(state.pattern);
+        }
+    }
+
+    @Benchmark
+    public void copy(final ThreadState state) {
+        final long[] arr = state.arr;
+        final int src = state.from;
+        final int length = (state.to - src) / 2;
+        final int dst = src + length;
+        switch (state.pattern) {
+            case SEQUENTIAL -> {
+                for (int i = 0; i < length; i++) {
+                    arr[dst + i] = arr[src + i];
+                }
+            }
+            case STRIDED -> {
+                for (int offset = 0; offset < AccessPattern.STRIDE; offset++) {
+                    for (int i = offset; i < length; i += AccessPattern.STRIDE) {
+                        arr[dst + i] = arr[src + i];
+                    }
+                }
+            }
+            case RANDOM -> {
+                final int mask = AccessPattern.randomMask(length);
+                for (int i = 0, x = 0; i < length; x = AccessPattern.nextRandom(x, mask)) {
+                    if (x < length) {
+                        arr[dst + x] = arr[src + x];
+                        i++;
+                    }
+                }
+            }
+            default -> throw new AssertionError(state.pattern);
+        }
+    }
+
+    private static final int[] threadCounts(final int availableProcessors) {
+        return IntStream.concat(
+                IntStream.iterate(1, threads -> threads < availableProcessors,
+                        threads -> threads * 2),
+                IntStream.of(availableProcessors))
+                .toArray();
+    }
+
+    private static final void printBandwidth(
+            final int[] threadCounts, final Collection<RunResult> results) {
+        final Map<String, RunResult> index = JmhResults.index(results,
+                result -> key(result, "workingSetBytes", "pattern") + " "
+                        + result.getParams().getThreads());
+        System.out.printf(Locale.ROOT, "%n# non-JMH: CPU caches: %s%n", describeCaches());
+        System.out.printf(Locale.ROOT, "# non-JMH: aggregate bandwidth, GB/s%n");
+        System.out.printf(Locale.ROOT, "%-10s %-10s %-6s", "workingSet", "pattern", "op");
+        for (final int threads : threadCounts) {
+            System.out.printf(Locale.ROOT, " %9s", "threads=" + threads);
+        }
+        System.out.println();
+        for (final long workingSetBytes : longParamValues(SharedState.class, "workingSetBytes")) {
+            for (final AccessPattern pattern : AccessPattern.values()) {
+                for (final String operation : new String[] {"read", "write", "copy"}) {
+                    System.out.printf(Locale.ROOT, "%-10s %-10s %-6s",
+                            formatBytes(workingSetBytes), pattern, operation);
+                    for (final int threads : threadCounts) {
+                        final RunResult result = index.get(
+                                key(operation, workingSetBytes, pattern) + " " + threads);
+                        // bytes per ns is the same as GB/s
+                        System.out.printf(Locale.ROOT, " %9s", format(result, "%.2f",
+                                threadsResult -> workingSetBytes / score(threadsResult)));
+                    }
+                    System.out.println();
+                }
+            }
+        }
+    }
+
+    /**
+     * Describes caches of the CPU 0 as reported by Linux, or returns {@code "unknown"}.
+     */
+    private static final String describeCaches() {
+        if (!Files.isDirectory(CPU0_CACHE_DIR)) {
+            return "unknown";
+        }
+        try (Stream<Path> cacheDirs = Files.list(CPU0_CACHE_DIR)) {
+            return cacheDirs.filter(dir -> dir.getFileName()
+                            .toString()
+                            .startsWith("index"))
+                    .sorted()
+                    .map(dir -> {
+                        try {
+                            return "L" + Files.readString(dir.resolve("level")).strip()
+                                    + " " + Files.readString(dir.resolve("type")).strip()
+                                    + " " + Files.readString(dir.resolve("size")).strip();
+                        } catch (final IOException e) {
+                            return "unknown";
+                        }
+                    })
+                    .reduce((a, b) -> a + ", " + b)
+                    .orElse("unknown");
+        } catch (final IOException e) {
+            return "unknown";
+        }
+    }
+
+    private static final String formatBytes(final long bytes) {
+        if (bytes >= 1 << 30) {
+            return (bytes >> 30) + " GiB";
+        } else if (bytes >= 1 << 20) {
+            return (bytes >> 20) + " MiB";
+        } else {
+            return (bytes >> 10) + " KiB";
+        }
+    }
+
+    public enum AccessPattern {
+        SEQUENTIAL,
+        /**
+         * Elements are accessed in multiple passes, each accessing a single element
+         * per {@linkplain #STRIDE cache line}.
+         */
+        STRIDED,
+        /**
+         * Elements are accessed in a pseudorandom order produced by a full-period
+         * linear congruential generator modulo the smallest power of two not less than
+         * the number of elements, values that are too big are skipped.
+         */
+        RANDOM;
+
+        /**
+         * The number of {@code long}s in a typical 64-byte cache line.
+         */
+        private static final int STRIDE = 8;
+
+        private static int randomMask(final int length) {
+            return length <= 1 ? 0 : Integer.highestOneBit(length - 1) * 2 - 1;
+        }
+
+        /**
+         * Has full period modulo {@code mask + 1} according to the Hull–Dobell theorem.
+         */
+        private static int nextRandom(final int x, final int mask) {
+            return (x * 1_103_515_245 + 12_345) & mask;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedState {
+        @Param({"4096", "16384", "65536", "262144", "1048576", "4194304", "16777216", "67108864",
+                "268435456", "1073741824"})
+        private long workingSetBytes;
+        private long[] arr;
+
+        public SharedState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup() {
+            arr = new long[Math.toIntExact(workingSetBytes / Long.BYTES)];
+            Arrays.fill(arr, 1);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        @Param({"SEQUENTIAL", "STRIDED", "RANDOM"})
+        private AccessPattern pattern;
+        private long[] arr;
+        /**
+         * The index of the first element of the slice accessed by this thread.
+         */
+        private int from;
+        /**
+         * The index after the last element of the slice accessed by this thread.
+         */
+        private int to;
+
+        public ThreadState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup(final SharedState shared, final ThreadParams threadParams) {
+            arr = shared.arr;
+            final long sliceLength = arr.length / threadParams.getThreadCount();
+            from = Math.toIntExact(sliceLength * threadParams.getThreadIndex());
+            to = Math.toIntExact(from + sliceLength);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package stincmale.sandbox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.RunnerException;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhResults;
+import static stincmale.sandbox.benchmarks.util.JmhResults.forEachJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.intParamValues;
+import static stincmale.sandbox.benchmarks.util.JmhResults.key;
+import static stincmale.sandbox.benchmarks.util.JmhResults.score;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+
+/**
+ * Compares sequential and parallel processing of the same data stored in different structures.
+ * The parallel processing is done via {@link Collection#parallelStream()}
+ * and via manually splitting a {@link Spliterator} into {@link RecursiveTask}s,
+ * both use the {@linkplain ForkJoinPool#commonPool() common pool}.
+ */
+public class ParallelStreamPerformanceBench {
+    private static final String COMMON_POOL_PARALLELISM_PROPERTY =
+            "java.util.concurrent.ForkJoinPool.common.parallelism";
+
+    public ParallelStreamPerformanceBench() {
+    }
+
+    /**
+     * Runs benchmarks for each common pool parallelism
+     * from 1 to the number of available processors, and reports break-even sizes,
+     * starting from which parallel processing pays off.
+     */
+    @Test
+    public void run() throws RunnerException {
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+        for (final int parallelism : parallelismLevels(availableProcessors)) {
+            final Collection<RunResult> results = JmhRunner.run(newOptionsBuilder(
+                    opts -> opts.forks(5)
+                            .warmupTime(milliseconds(200))
+                            .warmupIterations(10)
+                            .measurementTime(milliseconds(200))
+                            .measurementIterations(3))
+                    .include(includeBenchmarks(getClass()))
+                    .jvmArgsAppend("-D" + COMMON_POOL_PARALLELISM_PROPERTY + "=" + parallelism)
+                    .shouldDoGC(true)
+                    .mode(Mode.AverageTime)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .build());
+            forEachJvm(results,
+                    (jvm, jvmResults) -> printBreakEvenSizes(parallelism, jvmResults));
+        }
+    }
+
+    @Benchmark
+    public long sequential(final BenchmarkState state) {
+        return state.pipeline.apply(StreamSupport.stream(state.spliterator(), false));
+    }
+
+    @Benchmark
+    public long parallel(final BenchmarkState state) {
+        return state.pipeline.apply(StreamSupport.stream(state.spliterator(), true));
+    }
+
+    @Benchmark
+    public long forkJoin(final BenchmarkState state) {
+        final Spliterator<Integer> spliterator = state.spliterator();
+        // the same target leaf size as the one used by parallel streams
+        final long leafSize = Math.max(
+                spliterator.estimateSize() / (ForkJoinPool.getCommonPoolParallelism() << 2), 1);
+        return ForkJoinPool.commonPool()
+                .invoke(new PipelineTask(state.pipeline, spliterator, leafSize));
+    }
+
+    private static final int[] parallelismLevels(final int availableProcessors) {
+        return IntStream.concat(
+                IntStream.iterate(1, parallelism -> parallelism < availableProcessors,
+                        parallelism -> parallelism * 2),
+                IntStream.of(availableProcessors))
+                .toArray();
+    }
+
+    /**
+     * Prints the smallest size starting from which a parallel benchmark
+     * is faster than {@link #sequential(BenchmarkState)} for all bigger sizes.
+     */
+    private static final void printBreakEvenSizes(
+            final int parallelism, final Collection<RunResult> results) {
+        final Map<String, RunResult> index =
+                JmhResults.index(results, result -> key(result, "structure", "pipeline", "size"));
+        final int[] sizes = intParamValues(BenchmarkState.class, "size");
+        System.out.printf(Locale.ROOT,
+                "%n# non-JMH: break-even sizes, common pool parallelism %d%n", parallelism);
+        System.out.printf(Locale.ROOT, "%-12s %-11s %10s %10s%n",
+                "structure", "pipeline", "parallel", "forkJoin");
+        for (final BenchmarkState.Structure structure : BenchmarkState.Structure.values()) {
+            for (final BenchmarkState.Pipeline pipeline : BenchmarkState.Pipeline.values()) {
+                final String[] breakEvenSizes = Stream.of("parallel", "forkJoin")
+                        .map(benchmark -> {
+                            Integer breakEvenSize = null;
+                            for (final int size : sizes) {
+                                final RunResult sequentialResult =
+                                        index.get(key("sequential", structure, pipeline, size));
+                                final RunResult parallelResult =
+                                        index.get(key(benchmark, structure, pipeline, size));
+                                if (sequentialResult == null || parallelResult == null) {
+                                    // not all benchmarks were run
+                                    return "-";
+                                }
+                                if (score(parallelResult) < score(sequentialResult)) {
+                                    if (breakEvenSize == null) {
+                                        breakEvenSize = size;
+                                    }
+                                } else {
+                                    breakEvenSize = null;
+                                }
+                            }
+                            return breakEvenSize == null ? "never" : breakEvenSize.toString();
+                        })
+                        .toArray(String[]::new);
+                System.out.printf(Locale.ROOT, "%-12s %-11s %10s %10s%n",
+                        structure, pipeline, breakEvenSizes[0], breakEvenSizes[1]);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+        @Param({"5", "50", "500", "5000", "50000", "500000", "5000000"})
+        private int size;
+        @Param({"ARRAY", "ARRAY_LIST", "LINKED_LIST"})
+        private Structure structure;
+        @Param({"REDUCE", "FILTER_COUNT", "MAP_REDUCE"})
+        private Pipeline pipeline;
+        private Integer[] array;
+        private List<Integer> list;
+
+        public BenchmarkState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup() {
+            array = IntStream.range(0, size)
+                    .boxed()
+                    .toArray(Integer[]::new);
+            list = switch (structure) {
+                case ARRAY -> null;
+                case ARRAY_LIST -> new ArrayList<>(Arrays.asList(array));
+                case LINKED_LIST -> new LinkedList<>(Arrays.asList(array));
+            };
+        }
+
+        private Spliterator<Integer> spliterator() {
+            return list == null ? Arrays.spliterator(array) : list.spliterator();
+        }
+
+        public enum Structure {
+            ARRAY,
+            ARRAY_LIST,
+            LINKED_LIST
+        }
+
+        /**
+         * Pipelines that produce results which can be combined by summation,
+         * which allows {@link #forkJoin(BenchmarkState)} to combine partial results.
+         */
+        public enum Pipeline {
+            REDUCE(stream -> stream.reduce(0L, (sum, v) -> sum + v, Long::sum)),
+            FILTER_COUNT(stream -> stream.filter(v -> (v & 1) == 0)
+                    .count()),
+            MAP_REDUCE(stream -> stream.mapToLong(v -> (long) v * v)
+                    .sum());
+
+            private final ToLongFunction<Stream<Integer>> function;
+
+            Pipeline(final ToLongFunction<Stream<Integer>> function) {
+                this.function = function;
+            }
+
+            private long apply(final Stream<Integer> stream) {
+                return function.applyAsLong(stream);
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class PipelineTask extends RecursiveTask<Long> {
+        private final BenchmarkState.Pipeline pipeline;
+        private final Spliterator<Integer> spliterator;
+        private final long leafSize;
+
+        private PipelineTask(
+                final BenchmarkState.Pipeline pipeline,
+                final Spliterator<Integer> spliterator,
+                final long leafSize) {
+            this.pipeline = pipeline;
+            this.spliterator = spliterator;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Long compute() {
+            if (spliterator.estimateSize() > leafSize) {
+                final Spliterator<Integer> prefix = spliterator.trySplit();
+                if (prefix != null) {
+                    final PipelineTask prefixTask = new PipelineTask(pipeline, prefix, leafSize);
+                    prefixTask.fork();
+                    final long suffixResult =
+                            new PipelineTask(pipeline, spliterator, leafSize).compute();
+                    return prefixTask.join() + suffixResult;
+                }
+            }
+            return pipeline.apply(StreamSupport.stream(spliterator, false));
+        }
+    }
+}
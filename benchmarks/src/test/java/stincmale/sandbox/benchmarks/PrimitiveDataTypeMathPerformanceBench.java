@@ -1,35 +1,70 @@
 package stincmale.sandbox.benchmarks;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
-import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.results.RunResult;
 import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.concat;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.jvmArgsDisableGc;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
-
+import stincmale.sandbox.benchmarks.util.JmhResults;
+import static stincmale.sandbox.benchmarks.util.JmhResults.byJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.forEachJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.format;
+import static stincmale.sandbox.benchmarks.util.JmhResults.intParamValues;
+import static stincmale.sandbox.benchmarks.util.JmhResults.key;
+import static stincmale.sandbox.benchmarks.util.JmhResults.score;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+
+/**
+ * Measures arithmetic operations on {@code int}/{@code long}/{@code float}/{@code double}
+ * in two modes.
+ * <ul>
+ *     <li>{@link #run()} measures the latency of a single operation,
+ *     including the index bookkeeping done via {@link ThreadState}.
+ *     Operations on {@code float}/{@code double} are measured for each
+ *     {@link FloatingPointState.Distribution} of operands,
+ *     and their slowdown relative to {@link FloatingPointState.Distribution#NORMAL}
+ *     operands is reported.</li>
+ *     <li>{@link #runArrayKernels()} measures the throughput of {@code xyzTypeArray} kernels,
+ *     which apply an operation to whole arrays in counted loops,
+ *     which C2 may vectorize.
+ *     Some of these kernels, as well as {@link ArrayState}, are also used by
+ *     {@code vector.VectorApiPerformanceBench} as the scalar counterparts
+ *     of Vector API kernels.</li>
+ * </ul>
+ */
 public class PrimitiveDataTypeMathPerformanceBench {
+    private static final String ARRAY_KERNELS_REGEXP = "\\.\\w+Array$";
+    /**
+     * The minimal ratio of the throughput of a kernel with SuperWord to its throughput
+     * without SuperWord, starting from which the kernel is reported as vectorized.
+     */
+    private static final double VECTORIZED_SPEEDUP = 1.5;
     // 2^6, must be a power of 2
     private static final int NUMBER_OF_VALUES = 64;
     private static final int[] OPERANDS_INT;
-    private static final float[] OPERANDS_FLOAT;
     private static final long[] OPERANDS_LONG;
-    private static final double[] OPERANDS_DOUBLE;
 
     static {
         final Random rnd = new Random(1L);
         OPERANDS_INT = new int[NUMBER_OF_VALUES * 2];
-        OPERANDS_FLOAT = new float[NUMBER_OF_VALUES * 2];
         OPERANDS_LONG = new long[NUMBER_OF_VALUES];
-        OPERANDS_DOUBLE = new double[NUMBER_OF_VALUES];
         for (int i = 0; i < NUMBER_OF_VALUES; i++) {
             {
                 // fill operandsInt
@@ -45,14 +80,9 @@ public class PrimitiveDataTypeMathPerformanceBench {
                 // contiguously in memory.
                 OPERANDS_INT[i * 2] = rndInt;
             }
-            {
-                // fill operandsFloat
-                float rndFloat = rnd.nextFloat();
-                if (rndFloat > Float.MIN_VALUE / 2 && rndFloat < Float.MAX_VALUE / 2) {
-                    rndFloat *= 2;
-                }
-                OPERANDS_FLOAT[i * 2] = rndFloat;
-            }
+            // Float/double operands are provided by FloatingPointState, but they are still drawn
+            // here to keep the int/long operands the same as they were before.
+            rnd.nextFloat();
             {
                 // fill operandsLong
                 long rndLong = rnd.nextLong();
@@ -61,14 +91,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
                 }
                 OPERANDS_LONG[i] = rndLong;
             }
-            {
-                // fill operandsDouble
-                double rndDouble = rnd.nextDouble();
-                if (rndDouble > Double.MIN_VALUE / 2 && rndDouble < Double.MAX_VALUE / 2) {
-                    rndDouble *= 2;
-                }
-                OPERANDS_DOUBLE[i] = rndDouble;
-            }
+            rnd.nextDouble();
         }
     }
 
@@ -77,17 +100,37 @@ public class PrimitiveDataTypeMathPerformanceBench {
 
     @Test
     public void run() throws RunnerException {
-        new Runner(newOptionsBuilder(opts -> opts.forks(10)
+        final Collection<RunResult> results = JmhRunner.run(newOptionsBuilder(opts -> opts.forks(10)
                 .warmupTime(milliseconds(100))
                 .warmupIterations(10)
                 .measurementTime(milliseconds(100))
                 .measurementIterations(3))
                 .include(includeBenchmarks(getClass()))
+                .exclude(includeBenchmarks(getClass(), ARRAY_KERNELS_REGEXP))
                 .jvmArgsAppend(jvmArgsDisableGc())
                 .mode(Mode.AverageTime)
                 .timeUnit(TimeUnit.NANOSECONDS)
-                .build())
-                .run();
+                .build());
+        forEachJvm(results, (jvm, jvmResults) -> printSpecialValuesSlowdown(jvmResults));
+    }
+
+    /**
+     * Runs array kernels with and without SuperWord (C2 auto-vectorization),
+     * and reports their throughput in operations per nanosecond.
+     * A kernel is reported as vectorized if disabling SuperWord makes it
+     * at least {@value #VECTORIZED_SPEEDUP} times slower.
+     */
+    @Test
+    public void runArrayKernels() throws RunnerException {
+        final Collection<RunResult> results = JmhRunner.run(newArrayKernelsOptions()
+                .jvmArgsAppend(jvmArgsDisableGc())
+                .build());
+        final Collection<RunResult> resultsNoSuperWord = JmhRunner.run(newArrayKernelsOptions()
+                .jvmArgsAppend(concat(jvmArgsDisableGc(), new String[] {"-XX:-UseSuperWord"}))
+                .build());
+        final Map<String, List<RunResult>> resultsNoSuperWordByJvm = byJvm(resultsNoSuperWord);
+        forEachJvm(results, (jvm, jvmResults) -> printArrayKernelsThroughput(
+                jvmResults, resultsNoSuperWordByJvm.getOrDefault(jvm, List.of())));
     }
 
     @Benchmark
@@ -95,15 +138,15 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_INT[nextIdx];
+        return state.operandsInt[nextIdx];
     }
 
     @Benchmark
-    public float baselineFloat(final ThreadState state) {
+    public float baselineFloat(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_FLOAT[nextIdx];
+        return state.operandsFloat[nextIdx];
     }
 
     @Benchmark
@@ -111,15 +154,15 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_LONG[nextIdx];
+        return state.operandsLong[nextIdx];
     }
 
     @Benchmark
-    public double baselineDouble(final ThreadState state) {
+    public double baselineDouble(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_DOUBLE[nextIdx];
+        return state.operandsDouble[nextIdx];
     }
 
     @Benchmark
@@ -127,7 +170,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_INT[idx] + OPERANDS_INT[nextIdx];
+        return state.operandsInt[idx] + state.operandsInt[nextIdx];
     }
 
     @Benchmark
@@ -135,7 +178,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_INT[idx] * OPERANDS_INT[nextIdx];
+        return state.operandsInt[idx] * state.operandsInt[nextIdx];
     }
 
     @Benchmark
@@ -143,7 +186,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_INT[idx] / OPERANDS_INT[nextIdx];
+        return state.operandsInt[idx] / state.operandsInt[nextIdx];
     }
 
     @Benchmark
@@ -151,7 +194,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_INT[idx] % OPERANDS_INT[nextIdx];
+        return state.operandsInt[idx] % state.operandsInt[nextIdx];
     }
 
     @Benchmark
@@ -159,7 +202,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_INT[idx] == OPERANDS_INT[nextIdx];
+        return state.operandsInt[idx] == state.operandsInt[nextIdx];
     }
 
     @Benchmark
@@ -167,55 +210,55 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_INT[idx] < OPERANDS_INT[nextIdx];
+        return state.operandsInt[idx] < state.operandsInt[nextIdx];
     }
 
     @Benchmark
-    public float addFloat(final ThreadState state) {
+    public float addFloat(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_FLOAT[idx] + OPERANDS_FLOAT[nextIdx];
+        return state.operandsFloat[idx] + state.operandsFloat[nextIdx];
     }
 
     @Benchmark
-    public float multFloat(final ThreadState state) {
+    public float multFloat(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_FLOAT[idx] * OPERANDS_FLOAT[nextIdx];
+        return state.operandsFloat[idx] * state.operandsFloat[nextIdx];
     }
 
     @Benchmark
-    public float divFloat(final ThreadState state) {
+    public float divFloat(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_FLOAT[idx] / OPERANDS_FLOAT[nextIdx];
+        return state.operandsFloat[idx] / state.operandsFloat[nextIdx];
     }
 
     @Benchmark
-    public float remFloat(final ThreadState state) {
+    public float remFloat(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_FLOAT[idx] % OPERANDS_FLOAT[nextIdx];
+        return state.operandsFloat[idx] % state.operandsFloat[nextIdx];
     }
 
     @Benchmark
-    public boolean eqFloat(final ThreadState state) {
+    public boolean eqFloat(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_FLOAT[idx] == OPERANDS_FLOAT[nextIdx];
+        return state.operandsFloat[idx] == state.operandsFloat[nextIdx];
     }
 
     @Benchmark
-    public boolean ltFloat(final ThreadState state) {
+    public boolean ltFloat(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxIntFloat(idx);
         state.idx = nextIdx;
-        return OPERANDS_FLOAT[idx] < OPERANDS_FLOAT[nextIdx];
+        return state.operandsFloat[idx] < state.operandsFloat[nextIdx];
     }
 
     @Benchmark
@@ -223,7 +266,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_LONG[idx] + OPERANDS_LONG[nextIdx];
+        return state.operandsLong[idx] + state.operandsLong[nextIdx];
     }
 
     @Benchmark
@@ -231,7 +274,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_LONG[idx] * OPERANDS_LONG[nextIdx];
+        return state.operandsLong[idx] * state.operandsLong[nextIdx];
     }
 
     @Benchmark
@@ -239,7 +282,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_LONG[idx] / OPERANDS_LONG[nextIdx];
+        return state.operandsLong[idx] / state.operandsLong[nextIdx];
     }
 
     @Benchmark
@@ -247,7 +290,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_LONG[idx] % OPERANDS_LONG[nextIdx];
+        return state.operandsLong[idx] % state.operandsLong[nextIdx];
     }
 
     @Benchmark
@@ -255,7 +298,7 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_LONG[idx] == OPERANDS_LONG[nextIdx];
+        return state.operandsLong[idx] == state.operandsLong[nextIdx];
     }
 
     @Benchmark
@@ -263,55 +306,393 @@ public class PrimitiveDataTypeMathPerformanceBench {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_LONG[idx] < OPERANDS_LONG[nextIdx];
+        return state.operandsLong[idx] < state.operandsLong[nextIdx];
     }
 
     @Benchmark
-    public double addDouble(final ThreadState state) {
+    public double addDouble(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_DOUBLE[idx] + OPERANDS_DOUBLE[nextIdx];
+        return state.operandsDouble[idx] + state.operandsDouble[nextIdx];
     }
 
     @Benchmark
-    public double multDouble(final ThreadState state) {
+    public double multDouble(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_DOUBLE[idx] * OPERANDS_DOUBLE[nextIdx];
+        return state.operandsDouble[idx] * state.operandsDouble[nextIdx];
     }
 
     @Benchmark
-    public double divDouble(final ThreadState state) {
+    public double divDouble(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_DOUBLE[idx] / OPERANDS_DOUBLE[nextIdx];
+        return state.operandsDouble[idx] / state.operandsDouble[nextIdx];
     }
 
     @Benchmark
-    public double remDouble(final ThreadState state) {
+    public double remDouble(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_DOUBLE[idx] % OPERANDS_DOUBLE[nextIdx];
+        return state.operandsDouble[idx] % state.operandsDouble[nextIdx];
     }
 
     @Benchmark
-    public boolean eqDouble(final ThreadState state) {
+    public boolean eqDouble(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_DOUBLE[idx] == OPERANDS_DOUBLE[nextIdx];
+        return state.operandsDouble[idx] == state.operandsDouble[nextIdx];
     }
 
     @Benchmark
-    public boolean ltDouble(final ThreadState state) {
+    public boolean ltDouble(final FloatingPointState state) {
         final int idx = state.idx;
         final int nextIdx = nextIdxLongDouble(idx);
         state.idx = nextIdx;
-        return OPERANDS_DOUBLE[idx] < OPERANDS_DOUBLE[nextIdx];
+        return state.operandsDouble[idx] < state.operandsDouble[nextIdx];
+    }
+
+    @Benchmark
+    public int[] addIntArray(final ArrayState state) {
+        final int[] a = state.intsA;
+        final int[] b = state.intsB;
+        final int[] c = state.intsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] subIntArray(final ArrayState state) {
+        final int[] a = state.intsA;
+        final int[] b = state.intsB;
+        final int[] c = state.intsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] - b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] multIntArray(final ArrayState state) {
+        final int[] a = state.intsA;
+        final int[] b = state.intsB;
+        final int[] c = state.intsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] divIntArray(final ArrayState state) {
+        final int[] a = state.intsA;
+        final int[] b = state.intsB;
+        final int[] c = state.intsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] sqrtIntArray(final ArrayState state) {
+        final int[] a = state.intsA;
+        final int[] c = state.intsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = (int) Math.sqrt(a[i]);
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] mixedIntArray(final ArrayState state) {
+        final int[] a = state.intsA;
+        final int[] b = state.intsB;
+        final int[] c = state.intsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = (a[i] + b[i]) * a[i] - a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] addLongArray(final ArrayState state) {
+        final long[] a = state.longsA;
+        final long[] b = state.longsB;
+        final long[] c = state.longsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] subLongArray(final ArrayState state) {
+        final long[] a = state.longsA;
+        final long[] b = state.longsB;
+        final long[] c = state.longsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] - b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] multLongArray(final ArrayState state) {
+        final long[] a = state.longsA;
+        final long[] b = state.longsB;
+        final long[] c = state.longsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] divLongArray(final ArrayState state) {
+        final long[] a = state.longsA;
+        final long[] b = state.longsB;
+        final long[] c = state.longsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] sqrtLongArray(final ArrayState state) {
+        final long[] a = state.longsA;
+        final long[] c = state.longsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = (long) Math.sqrt(a[i]);
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] mixedLongArray(final ArrayState state) {
+        final long[] a = state.longsA;
+        final long[] b = state.longsB;
+        final long[] c = state.longsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = (a[i] + b[i]) * a[i] - a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] addFloatArray(final ArrayState state) {
+        final float[] a = state.floatsA;
+        final float[] b = state.floatsB;
+        final float[] c = state.floatsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] subFloatArray(final ArrayState state) {
+        final float[] a = state.floatsA;
+        final float[] b = state.floatsB;
+        final float[] c = state.floatsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] - b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] multFloatArray(final ArrayState state) {
+        final float[] a = state.floatsA;
+        final float[] b = state.floatsB;
+        final float[] c = state.floatsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] divFloatArray(final ArrayState state) {
+        final float[] a = state.floatsA;
+        final float[] b = state.floatsB;
+        final float[] c = state.floatsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] sqrtFloatArray(final ArrayState state) {
+        final float[] a = state.floatsA;
+        final float[] c = state.floatsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = (float) Math.sqrt(a[i]);
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] mixedFloatArray(final ArrayState state) {
+        final float[] a = state.floatsA;
+        final float[] b = state.floatsB;
+        final float[] c = state.floatsC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = (a[i] + b[i]) * a[i] - a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] addDoubleArray(final ArrayState state) {
+        final double[] a = state.doublesA;
+        final double[] b = state.doublesB;
+        final double[] c = state.doublesC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] subDoubleArray(final ArrayState state) {
+        final double[] a = state.doublesA;
+        final double[] b = state.doublesB;
+        final double[] c = state.doublesC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] - b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] multDoubleArray(final ArrayState state) {
+        final double[] a = state.doublesA;
+        final double[] b = state.doublesB;
+        final double[] c = state.doublesC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] divDoubleArray(final ArrayState state) {
+        final double[] a = state.doublesA;
+        final double[] b = state.doublesB;
+        final double[] c = state.doublesC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] sqrtDoubleArray(final ArrayState state) {
+        final double[] a = state.doublesA;
+        final double[] c = state.doublesC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = Math.sqrt(a[i]);
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] mixedDoubleArray(final ArrayState state) {
+        final double[] a = state.doublesA;
+        final double[] b = state.doublesB;
+        final double[] c = state.doublesC;
+        for (int i = 0; i < c.length; i++) {
+            c[i] = (a[i] + b[i]) * a[i] - a[i] / b[i];
+        }
+        return c;
+    }
+
+    private static final ChainedOptionsBuilder newArrayKernelsOptions() {
+        return newOptionsBuilder(opts -> opts.forks(5)
+                .warmupTime(milliseconds(100))
+                .warmupIterations(10)
+                .measurementTime(milliseconds(100))
+                .measurementIterations(3))
+                .include(includeBenchmarks(PrimitiveDataTypeMathPerformanceBench.class,
+                        ARRAY_KERNELS_REGEXP))
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS);
+    }
+
+    private static final void printArrayKernelsThroughput(
+            final Collection<RunResult> results, final Collection<RunResult> resultsNoSuperWord) {
+        final Map<String, RunResult> index =
+                JmhResults.index(results, result -> key(result, "length"));
+        final Map<String, RunResult> indexNoSuperWord =
+                JmhResults.index(resultsNoSuperWord, result -> key(result, "length"));
+        System.out.printf(Locale.ROOT, "%n# non-JMH: array kernels throughput, ops/ns%n");
+        System.out.printf(Locale.ROOT, "%-18s %8s %10s %14s %10s%n",
+                "kernel", "length", "SuperWord", "no SuperWord", "vectorized");
+        for (final String type : new String[] {"Int", "Long", "Float", "Double"}) {
+            for (final String operation
+                    : new String[] {"add", "sub", "mult", "div", "sqrt", "mixed"}) {
+                final String kernel = operation + type + "Array";
+                for (final int length : intParamValues(ArrayState.class, "length")) {
+                    final RunResult result = index.get(key(kernel, length));
+                    final RunResult resultNoSuperWord = indexNoSuperWord.get(key(kernel, length));
+                    if (result == null || resultNoSuperWord == null) {
+                        // not all benchmarks were run
+                        continue;
+                    }
+                    final double throughput = length / score(result);
+                    final double throughputNoSuperWord = length / score(resultNoSuperWord);
+                    System.out.printf(Locale.ROOT, "%-18s %8d %10.3f %14.3f %10s%n",
+                            kernel, length, throughput, throughputNoSuperWord,
+                            throughput / throughputNoSuperWord >= VECTORIZED_SPEEDUP
+                                    ? "yes" : "no");
+                }
+            }
+        }
+    }
+
+    private static final void printSpecialValuesSlowdown(final Collection<RunResult> results) {
+        final Map<String, RunResult> index = JmhResults.index(results.stream()
+                        .filter(result -> result.getParams()
+                                .getParam("distribution") != null)
+                        .toList(),
+                result -> key(result, "distribution"));
+        final FloatingPointState.Distribution[] distributions =
+                FloatingPointState.Distribution.values();
+        final FloatingPointState.Distribution normal = FloatingPointState.Distribution.NORMAL;
+        System.out.printf(Locale.ROOT, "%n# non-JMH: slowdown relative to %s operands%n", normal);
+        System.out.printf(Locale.ROOT, "%-16s", "benchmark");
+        for (final FloatingPointState.Distribution distribution : distributions) {
+            System.out.printf(Locale.ROOT, " %16s", distribution);
+        }
+        System.out.println();
+        for (final String type : new String[] {"Float", "Double"}) {
+            for (final String operation
+                    : new String[] {"baseline", "add", "mult", "div", "rem", "eq", "lt"}) {
+                final String benchmark = operation + type;
+                final RunResult normalResult = index.get(key(benchmark, normal));
+                if (normalResult == null) {
+                    // not all benchmarks were run
+                    continue;
+                }
+                System.out.printf(Locale.ROOT, "%-16s", benchmark);
+                for (final FloatingPointState.Distribution distribution : distributions) {
+                    final RunResult result = index.get(key(benchmark, distribution));
+                    System.out.printf(Locale.ROOT, " %16s", format(result, "%.2f",
+                            distributionResult -> score(distributionResult) / score(normalResult)));
+                }
+                System.out.println();
+            }
+        }
     }
 
     private static final int nextIdx(final int idx, final int step) {
@@ -327,16 +708,214 @@ public class PrimitiveDataTypeMathPerformanceBench {
         return nextIdx(idx, 1);
     }
 
+    /**
+     * Provides {@code int}/{@code long} operands.
+     * Benchmarks read them from the fields of this state rather than from
+     * the {@code OPERANDS_*} arrays directly, because {@code float}/{@code double} operands
+     * are read from the fields of {@link FloatingPointState}, and all types must be accessed
+     * the same way for their results to be comparable.
+     */
     @State(Scope.Thread)
     public static class ThreadState {
+        private int[] operandsInt;
+        private long[] operandsLong;
         private int idx;
 
         public ThreadState() {
         }
 
+        @Setup(Level.Trial)
+        public final void setupTrial() {
+            operandsInt = OPERANDS_INT;
+            operandsLong = OPERANDS_LONG;
+        }
+
         @Setup(Level.Iteration)
         public final void setup() {
             idx = 0;
         }
     }
+
+    /**
+     * Provides {@code float}/{@code double} operands the same way {@link ThreadState}
+     * does for {@code int}/{@code long}, but with a configurable {@link Distribution}.
+     */
+    @State(Scope.Thread)
+    public static class FloatingPointState {
+        @Param({"NORMAL", "SUBNORMAL_HEAVY", "NAN_INF_MIXED"})
+        private Distribution distribution;
+        private float[] operandsFloat;
+        private double[] operandsDouble;
+        private int idx;
+
+        public FloatingPointState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setupTrial() {
+            final Random rnd = new Random(1L);
+            // the index for operandsFloat is i * 2 for the same reason as for OPERANDS_INT
+            operandsFloat = new float[NUMBER_OF_VALUES * 2];
+            operandsDouble = new double[NUMBER_OF_VALUES];
+            for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+                operandsFloat[i * 2] = (float) distribution.next(rnd, i, Float.MIN_NORMAL);
+                operandsDouble[i] = distribution.next(rnd, i, Double.MIN_NORMAL);
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public final void setup() {
+            idx = 0;
+        }
+
+        /**
+         * Operations are done on pairs of operands with adjacent indices,
+         * and the distributions take this into account.
+         * <p>
+         * Java always uses IEEE 754 gradual underflow, i.e., there is no way to make the JVM
+         * flush subnormal numbers to zero, so if operations on them are slow,
+         * the only option is to flush them in the code that produces them.</p>
+         */
+        public enum Distribution {
+            /**
+             * Normal numbers from [0, 2), and rarely 0.
+             */
+            NORMAL,
+            /**
+             * Three out of four operands are positive subnormal numbers, and the rest are
+             * {@linkplain #NORMAL normal}. Therefore, each operation has at least one
+             * subnormal operand, and many results are subnormal.
+             */
+            SUBNORMAL_HEAVY,
+            /**
+             * Every other operand is either NaN or an infinity, and the rest are
+             * {@linkplain #NORMAL normal}. Therefore, each operation has exactly one
+             * such operand.
+             */
+            NAN_INF_MIXED;
+
+            /**
+             * Returns the operand with index {@code i}.
+             *
+             * @param i The index of the operand.
+             * @param minNormal {@link Float#MIN_NORMAL} or {@link Double#MIN_NORMAL}.
+             */
+            private double next(final Random rnd, final int i, final double minNormal) {
+                final double normal = rnd.nextDouble() * 2;
+                return switch (this) {
+                    case NORMAL -> normal;
+                    case SUBNORMAL_HEAVY -> i % 4 == 0 ? normal : rnd.nextDouble() * minNormal;
+                    case NAN_INF_MIXED -> switch (i % 4) {
+                        case 1 -> Double.NaN;
+                        case 3 -> i % 8 == 3 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+                        default -> normal;
+                    };
+                };
+            }
+        }
+    }
+
+    /**
+     * Arrays of operands and results of the {@code xyzTypeArray} kernels.
+     * The accessors are for benchmarks in other packages.
+     */
+    @State(Scope.Thread)
+    public static class ArrayState {
+        @Param({"10", "100", "1000", "10000", "100000"})
+        private int length;
+        private int[] intsA;
+        private int[] intsB;
+        private int[] intsC;
+        private long[] longsA;
+        private long[] longsB;
+        private long[] longsC;
+        private float[] floatsA;
+        private float[] floatsB;
+        private float[] floatsC;
+        private double[] doublesA;
+        private double[] doublesB;
+        private double[] doublesC;
+
+        public ArrayState() {
+        }
+
+        /**
+         * Fills operands with positive values,
+         * so that they may be divisors and square root arguments.
+         */
+        @Setup(Level.Trial)
+        public final void setup() {
+            final Random rnd = new Random(1L);
+            intsA = rnd.ints(length, 1, Integer.MAX_VALUE)
+                    .toArray();
+            intsB = rnd.ints(length, 1, 1 << 10)
+                    .toArray();
+            intsC = new int[length];
+            longsA = rnd.longs(length, 1, Long.MAX_VALUE)
+                    .toArray();
+            longsB = rnd.longs(length, 1, 1 << 10)
+                    .toArray();
+            longsC = new long[length];
+            doublesA = rnd.doubles(length, 1, 2)
+                    .toArray();
+            doublesB = rnd.doubles(length, 1, 2)
+                    .toArray();
+            doublesC = new double[length];
+            floatsA = new float[length];
+            floatsB = new float[length];
+            floatsC = new float[length];
+            for (int i = 0; i < length; i++) {
+                floatsA[i] = (float) doublesA[i];
+                floatsB[i] = (float) doublesB[i];
+            }
+        }
+
+        public final int[] intsA() {
+            return intsA;
+        }
+
+        public final int[] intsB() {
+            return intsB;
+        }
+
+        public final int[] intsC() {
+            return intsC;
+        }
+
+        public final long[] longsA() {
+            return longsA;
+        }
+
+        public final long[] longsB() {
+            return longsB;
+        }
+
+        public final long[] longsC() {
+            return longsC;
+        }
+
+        public final float[] floatsA() {
+            return floatsA;
+        }
+
+        public final float[] floatsB() {
+            return floatsB;
+        }
+
+        public final float[] floatsC() {
+            return floatsC;
+        }
+
+        public final double[] doublesA() {
+            return doublesA;
+        }
+
+        public final double[] doublesB() {
+            return doublesB;
+        }
+
+        public final double[] doublesC() {
+            return doublesC;
+        }
+    }
 }
@@ -8,13 +8,23 @@ import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
-import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import stincmale.sandbox.benchmarks.util.AllocationFree;
+import stincmale.sandbox.benchmarks.util.AllocationFreeChecker;
+import stincmale.sandbox.benchmarks.util.FastDivisor;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.jvmArgsDisableGc;
 import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
 
+/**
+ * Compares ways of computing a remainder.
+ * Benchmarks with the {@code runtime} prefix use a divisor that is not a compile-time constant,
+ * which prevents C2 from replacing the division with a multiplication,
+ * and compare {@link FastDivisor}, which does such a replacement at run time,
+ * with the built-in operations.
+ */
 public class RemainderPerformanceBench {
     // 2^10, must be a power of 2
     private static final long DENOMINATOR_POW2 = 1024;
@@ -26,7 +36,7 @@ public class RemainderPerformanceBench {
 
     @Test
     public void run() throws RunnerException {
-        new Runner(newOptionsBuilder(opts -> opts.forks(10)
+        JmhRunner.run(newOptionsBuilder(opts -> opts.forks(10)
                 .warmupTime(milliseconds(100))
                 .warmupIterations(10)
                 .measurementTime(milliseconds(100))
@@ -35,16 +45,22 @@ public class RemainderPerformanceBench {
                 .jvmArgsAppend(jvmArgsDisableGc())
                 .mode(Mode.AverageTime)
                 .timeUnit(TimeUnit.NANOSECONDS)
-                .build())
-                .run();
+                .build());
+    }
+
+    @Test
+    public void allocationFree() throws RunnerException {
+        AllocationFreeChecker.check(getClass());
     }
 
     @Benchmark
+    @AllocationFree
     public long baseline(final ThreadState state) {
         return state.counter++;
     }
 
     @Benchmark
+    @AllocationFree
     public long ordinary(final ThreadState state) {
         return (state.counter++) % DENOMINATOR;
     }
@@ -53,6 +69,7 @@ public class RemainderPerformanceBench {
      * A special case of {@link #ordinary(ThreadState)} when the denominator is a power of 2.
      */
     @Benchmark
+    @AllocationFree
     public long ordinaryPow2(final ThreadState state) {
         return (state.counter++) % DENOMINATOR_POW2;
     }
@@ -62,13 +79,72 @@ public class RemainderPerformanceBench {
      * but uses a different approach.
      */
     @Benchmark
+    @AllocationFree
     public long bitwise(final ThreadState state) {
         return (state.counter++) & BITWISE_DENOMINATOR_POW2;
     }
 
+    @Benchmark
+    @AllocationFree
+    public long runtimeOrdinary(final ThreadState state) {
+        return (state.counter++) % state.denominator;
+    }
+
+    @Benchmark
+    @AllocationFree
+    public long runtimeFloorMod(final ThreadState state) {
+        return Math.floorMod(state.counter++, state.denominator);
+    }
+
+    @Benchmark
+    @AllocationFree
+    public long runtimeRemainderUnsigned(final ThreadState state) {
+        return Long.remainderUnsigned(state.counter++, state.denominator);
+    }
+
+    @Benchmark
+    @AllocationFree
+    public long runtimeFastDivisorMod(final ThreadState state) {
+        return state.fastDivisor.mod(state.counter++);
+    }
+
+    @Benchmark
+    @AllocationFree
+    public long runtimeFastDivisorFloorMod(final ThreadState state) {
+        return state.fastDivisor.floorMod(state.counter++);
+    }
+
+    @Benchmark
+    @AllocationFree
+    public long runtimeDiv(final ThreadState state) {
+        return (state.counter++) / state.denominator;
+    }
+
+    @Benchmark
+    @AllocationFree
+    public long runtimeFastDivisorDiv(final ThreadState state) {
+        return state.fastDivisor.div(state.counter++);
+    }
+
+    @Benchmark
+    @AllocationFree
+    public int runtimeOrdinaryInt(final ThreadState state) {
+        return (int) (state.counter++) % state.intDenominator;
+    }
+
+    @Benchmark
+    @AllocationFree
+    public int runtimeFastDivisorModInt(final ThreadState state) {
+        return state.intFastDivisor.mod((int) (state.counter++));
+    }
+
     @State(Scope.Thread)
     public static class ThreadState {
         private long counter;
+        private long denominator;
+        private int intDenominator;
+        private FastDivisor.OfLong fastDivisor;
+        private FastDivisor.OfInt intFastDivisor;
 
         public ThreadState() {
         }
@@ -76,6 +152,10 @@ public class RemainderPerformanceBench {
         @Setup(Level.Iteration)
         public final void setup() {
             counter = Long.MAX_VALUE / 2;
+            denominator = DENOMINATOR;
+            intDenominator = (int) DENOMINATOR;
+            fastDivisor = FastDivisor.of(denominator);
+            intFastDivisor = FastDivisor.of(intDenominator);
         }
     }
 }
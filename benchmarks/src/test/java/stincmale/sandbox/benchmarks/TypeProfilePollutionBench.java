@@ -0,0 +1,467 @@
+package stincmale.sandbox.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.RunnerException;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhResults;
+import static stincmale.sandbox.benchmarks.util.JmhResults.forEachJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.format;
+import static stincmale.sandbox.benchmarks.util.JmhResults.intParamValues;
+import static stincmale.sandbox.benchmarks.util.JmhResults.key;
+import static stincmale.sandbox.benchmarks.util.JmhResults.score;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+
+/**
+ * Measures the cost of {@code List} call sites that see more than one receiver type,
+ * which happens, e.g., in {@link ListPerformanceBench}, where a single fork creates lists via
+ * {@code Function<Integer, List<Object>>} suppliers and uses them via the {@code List} interface.
+ * <p>
+ * C2 uses the receiver type profile collected for a call site to inline the callee(s)
+ * behind type guards if the call site is monomorphic or bimorphic.
+ * If the profile has more than two receiver types and none of them dominates,
+ * the call site is megamorphic: the callee is not inlined, and the call is dispatched
+ * via the itable, which also prevents optimizations across the call, e.g., hoisting
+ * range checks out of a loop.</p>
+ * <p>
+ * The lists used in all benchmarks are instances of {@link ArrayList} subclasses that do not
+ * override anything, see {@link SealedList}. Thus, all benchmarks do exactly the same work,
+ * and differ only in how many receiver types the call sites see, which is specified by
+ * {@link Polymorphism}, and in how the calls are dispatched:</p>
+ * <ul>
+ *     <li>via the {@code List} interface, e.g., {@link #add(ThreadState)};</li>
+ *     <li>via the {@link SealedList} interface, e.g., {@link #addSealed(ThreadState)}.
+ *     C2 does not use the fact that an interface is {@code sealed} to devirtualize calls
+ *     as of JDK 21, so this is expected to be the same as calling via the {@code List}
+ *     interface;</li>
+ *     <li>via a chain of {@code instanceof} checks for each call, e.g.,
+ *     {@link #addManualTypeCheck(ThreadState)}. Each branch calls a method of a final class,
+ *     which does not require a type profile to be inlined;</li>
+ *     <li>via a type check for each list followed by a loop specific to the class of the list,
+ *     e.g., {@link #addClassSpecificLoop(ThreadState)}.</li>
+ * </ul>
+ */
+public class TypeProfilePollutionBench {
+    private static final int NUMBER_OF_LISTS = 12;
+    private static final String[] BENCHMARKS = {"add", "addSealed", "addManualTypeCheck",
+            "addClassSpecificLoop", "iterate", "iterateIndexed", "iterateIndexedSealed",
+            "iterateIndexedManualTypeCheck", "iterateIndexedClassSpecificLoop"};
+
+    public TypeProfilePollutionBench() {
+    }
+
+    /**
+     * Runs benchmarks for each {@link Polymorphism}, and reports the time per element in ns.
+     */
+    @Test
+    public void run() throws RunnerException {
+        final Collection<RunResult> results = JmhRunner.run(newOptionsBuilder(opts -> opts.forks(3)
+                .warmupTime(milliseconds(100))
+                .warmupIterations(10)
+                .measurementTime(milliseconds(100))
+                .measurementIterations(5))
+                .include(includeBenchmarks(getClass()))
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .build());
+        forEachJvm(results, (jvm, jvmResults) -> printTimePerElement(jvmResults));
+    }
+
+    @Benchmark
+    public int add(final ThreadState state) {
+        final Object element = state.element;
+        final int size = state.size;
+        int result = 0;
+        for (final List<Object> list : state.lists) {
+            list.clear();
+            for (int i = 0; i < size; i++) {
+                list.add(element);
+            }
+            result += list.size();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int addSealed(final ThreadState state) {
+        final Object element = state.element;
+        final int size = state.size;
+        int result = 0;
+        for (final SealedList list : state.lists) {
+            list.clear();
+            for (int i = 0; i < size; i++) {
+                list.add(element);
+            }
+            result += list.size();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int addManualTypeCheck(final ThreadState state) {
+        final Object element = state.element;
+        final int size = state.size;
+        int result = 0;
+        for (final List<Object> list : state.lists) {
+            list.clear();
+            for (int i = 0; i < size; i++) {
+                if (list instanceof final ListA listA) {
+                    listA.add(element);
+                } else if (list instanceof final ListB listB) {
+                    listB.add(element);
+                } else if (list instanceof final ListC listC) {
+                    listC.add(element);
+                } else if (list instanceof final ListD listD) {
+                    listD.add(element);
+                } else {
+                    list.add(element);
+                }
+            }
+            result += list.size();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int addClassSpecificLoop(final ThreadState state) {
+        final Object element = state.element;
+        final int size = state.size;
+        int result = 0;
+        for (final List<Object> list : state.lists) {
+            list.clear();
+            if (list instanceof final ListA listA) {
+                fill(listA, element, size);
+            } else if (list instanceof final ListB listB) {
+                fill(listB, element, size);
+            } else if (list instanceof final ListC listC) {
+                fill(listC, element, size);
+            } else if (list instanceof final ListD listD) {
+                fill(listD, element, size);
+            } else {
+                fill(list, element, size);
+            }
+            result += list.size();
+        }
+        return result;
+    }
+
+    /**
+     * Unlike the indexed iteration benchmarks, the call sites that are executed for each element,
+     * {@link java.util.Iterator#hasNext()} and {@link java.util.Iterator#next()}, are monomorphic
+     * because all {@link SealedList}s share the iterator implementation of {@link ArrayList}.
+     * Only the {@link List#iterator()} call site, which is executed once per list, is polluted.
+     */
+    @Benchmark
+    public boolean iterate(final ThreadState state) {
+        boolean result = false;
+        for (final List<Object> list : state.lists) {
+            for (final Object o : list) {
+                //noinspection IfStatementMissingBreakInLoop
+                if (o == list) {
+                    result = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public boolean iterateIndexed(final ThreadState state) {
+        boolean result = false;
+        for (final List<Object> list : state.lists) {
+            for (int i = 0; i < list.size(); i++) {
+                //noinspection IfStatementMissingBreakInLoop
+                if (list.get(i) == list) {
+                    result = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public boolean iterateIndexedSealed(final ThreadState state) {
+        boolean result = false;
+        for (final SealedList list : state.lists) {
+            for (int i = 0; i < list.size(); i++) {
+                //noinspection IfStatementMissingBreakInLoop
+                if (list.get(i) == list) {
+                    result = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public boolean iterateIndexedManualTypeCheck(final ThreadState state) {
+        boolean result = false;
+        for (final List<Object> list : state.lists) {
+            for (int i = 0; i < list.size(); i++) {
+                final Object o;
+                if (list instanceof final ListA listA) {
+                    o = listA.get(i);
+                } else if (list instanceof final ListB listB) {
+                    o = listB.get(i);
+                } else if (list instanceof final ListC listC) {
+                    o = listC.get(i);
+                } else if (list instanceof final ListD listD) {
+                    o = listD.get(i);
+                } else {
+                    o = list.get(i);
+                }
+                //noinspection IfStatementMissingBreakInLoop
+                if (o == list) {
+                    result = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public boolean iterateIndexedClassSpecificLoop(final ThreadState state) {
+        boolean result = false;
+        for (final List<Object> list : state.lists) {
+            if (list instanceof final ListA listA) {
+                result |= contains(listA, list);
+            } else if (list instanceof final ListB listB) {
+                result |= contains(listB, list);
+            } else if (list instanceof final ListC listC) {
+                result |= contains(listC, list);
+            } else if (list instanceof final ListD listD) {
+                result |= contains(listD, list);
+            } else {
+                result |= contains(list, list);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * The following overloads are identical except for the static type of the list,
+     * which is what makes the call sites in each of them monomorphic.
+     */
+
+    private static final void fill(final ListA list, final Object element, final int size) {
+        for (int i = 0; i < size; i++) {
+            list.add(element);
+        }
+    }
+
+    private static final void fill(final ListB list, final Object element, final int size) {
+        for (int i = 0; i < size; i++) {
+            list.add(element);
+        }
+    }
+
+    private static final void fill(final ListC list, final Object element, final int size) {
+        for (int i = 0; i < size; i++) {
+            list.add(element);
+        }
+    }
+
+    private static final void fill(final ListD list, final Object element, final int size) {
+        for (int i = 0; i < size; i++) {
+            list.add(element);
+        }
+    }
+
+    private static final void fill(final List<Object> list, final Object element, final int size) {
+        for (int i = 0; i < size; i++) {
+            list.add(element);
+        }
+    }
+
+    private static final boolean contains(final ListA list, final Object element) {
+        boolean result = false;
+        for (int i = 0; i < list.size(); i++) {
+            //noinspection IfStatementMissingBreakInLoop
+            if (list.get(i) == element) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    private static final boolean contains(final ListB list, final Object element) {
+        boolean result = false;
+        for (int i = 0; i < list.size(); i++) {
+            //noinspection IfStatementMissingBreakInLoop
+            if (list.get(i) == element) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    private static final boolean contains(final ListC list, final Object element) {
+        boolean result = false;
+        for (int i = 0; i < list.size(); i++) {
+            //noinspection IfStatementMissingBreakInLoop
+            if (list.get(i) == element) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    private static final boolean contains(final ListD list, final Object element) {
+        boolean result = false;
+        for (int i = 0; i < list.size(); i++) {
+            //noinspection IfStatementMissingBreakInLoop
+            if (list.get(i) == element) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    private static final boolean contains(final List<Object> list, final Object element) {
+        boolean result = false;
+        for (int i = 0; i < list.size(); i++) {
+            //noinspection IfStatementMissingBreakInLoop
+            if (list.get(i) == element) {
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    private static final void printTimePerElement(final Collection<RunResult> results) {
+        final Map<String, RunResult> index = JmhResults.index(results,
+                result -> key(result, "size", "polymorphism"));
+        System.out.printf(Locale.ROOT, "%n# non-JMH: time per element, ns%n");
+        System.out.printf(Locale.ROOT, "%-32s %6s", "benchmark", "size");
+        for (final Polymorphism polymorphism : Polymorphism.values()) {
+            System.out.printf(Locale.ROOT, " %12s", polymorphism);
+        }
+        System.out.println();
+        for (final String benchmark : BENCHMARKS) {
+            for (final int size : intParamValues(ThreadState.class, "size")) {
+                System.out.printf(Locale.ROOT, "%-32s %6d", benchmark, size);
+                for (final Polymorphism polymorphism : Polymorphism.values()) {
+                    final RunResult result = index.get(key(benchmark, size, polymorphism));
+                    System.out.printf(Locale.ROOT, " %12s", format(result, "%.3f",
+                            polymorphismResult -> score(polymorphismResult)
+                                    / (NUMBER_OF_LISTS * size)));
+                }
+                System.out.println();
+            }
+        }
+    }
+
+    /**
+     * Specifies the receiver types the benchmarked call sites see.
+     * The lists are used in the round-robin order,
+     * so no type dominates the profile of a call site.
+     */
+    public enum Polymorphism {
+        MONOMORPHIC(1),
+        BIMORPHIC(2),
+        MEGAMORPHIC(4);
+
+        private final int numberOfTypes;
+
+        Polymorphism(final int numberOfTypes) {
+            this.numberOfTypes = numberOfTypes;
+        }
+
+        private SealedList create(final int idx, final int capacity) {
+            switch (idx % numberOfTypes) {
+                case 0:
+                    return new ListA(capacity);
+                case 1:
+                    return new ListB(capacity);
+                case 2:
+                    return new ListC(capacity);
+                default:
+                    return new ListD(capacity);
+            }
+        }
+    }
+
+    /**
+     * Lists with the same behavior, but different classes,
+     * which are distinguishable in a receiver type profile.
+     */
+    public sealed interface SealedList extends List<Object> permits ListA, ListB, ListC, ListD {
+    }
+
+    public static final class ListA extends ArrayList<Object> implements SealedList {
+        private static final long serialVersionUID = 0;
+
+        public ListA(final int initialCapacity) {
+            super(initialCapacity);
+        }
+    }
+
+    public static final class ListB extends ArrayList<Object> implements SealedList {
+        private static final long serialVersionUID = 0;
+
+        public ListB(final int initialCapacity) {
+            super(initialCapacity);
+        }
+    }
+
+    public static final class ListC extends ArrayList<Object> implements SealedList {
+        private static final long serialVersionUID = 0;
+
+        public ListC(final int initialCapacity) {
+            super(initialCapacity);
+        }
+    }
+
+    public static final class ListD extends ArrayList<Object> implements SealedList {
+        private static final long serialVersionUID = 0;
+
+        public ListD(final int initialCapacity) {
+            super(initialCapacity);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        @Param({"10", "1000"})
+        private int size;
+        @Param({"MONOMORPHIC", "BIMORPHIC", "MEGAMORPHIC"})
+        private Polymorphism polymorphism;
+        private Object element;
+        /**
+         * The benchmarks that call methods via the {@code List} interface
+         * use {@code List<Object>} as the type of the iteration variable.
+         */
+        private SealedList[] lists;
+
+        public ThreadState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setup() {
+            element = new Object();
+            lists = new SealedList[NUMBER_OF_LISTS];
+            for (int i = 0; i < NUMBER_OF_LISTS; i++) {
+                final SealedList list = polymorphism.create(i, size);
+                for (int j = 0; j < size; j++) {
+                    list.add(element);
+                }
+                lists[i] = list;
+            }
+        }
+    }
+}
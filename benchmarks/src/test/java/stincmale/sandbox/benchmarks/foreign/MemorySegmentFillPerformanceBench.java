@@ -0,0 +1,100 @@
+package stincmale.sandbox.benchmarks.foreign;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.RunnerException;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+
+/**
+ * Compares filling a {@code long[]} with zeros via {@link Arrays#fill(long[], long)}
+ * with {@link MemorySegment#fill(byte)} of a heap segment backed by the array
+ * and of a native segment of the same size in bytes.
+ * The lengths and the measurement settings are the same as in
+ * {@link stincmale.sandbox.benchmarks.ArrayFillPerformanceBench},
+ * so the results are comparable.
+ * {@link MemorySegment#fill(byte)} sets each byte, so it can fill a {@code long[]} only
+ * with values whose bytes are all the same, which is why only filling with zeros is compared.
+ * <p>
+ * This class is compiled separately from other benchmarks because
+ * {@link java.lang.foreign} is a preview API at the Java SE version the project is built for.
+ * For the same reason, benchmarks may be run only by the JDK of that version.</p>
+ */
+public class MemorySegmentFillPerformanceBench {
+    private static final String JVM_ARG_ENABLE_PREVIEW = "--enable-preview";
+
+    public MemorySegmentFillPerformanceBench() {
+    }
+
+    @Test
+    public void run() throws RunnerException {
+        JmhRunner.run(newOptionsBuilder(opts -> opts.forks(20)
+                .warmupTime(milliseconds(100))
+                .warmupIterations(5)
+                .measurementTime(milliseconds(100))
+                .measurementIterations(3))
+                .include(includeBenchmarks(getClass()))
+                .jvmArgsAppend(JVM_ARG_ENABLE_PREVIEW)
+                .shouldDoGC(true)
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .build());
+    }
+
+    @Benchmark
+    public void arraysFill0(final ThreadState state) {
+        Arrays.fill(state.arr, 0);
+    }
+
+    @Benchmark
+    public void heapSegmentFill0(final ThreadState state) {
+        MemorySegment.ofArray(state.arr)
+                .fill((byte) 0);
+    }
+
+    @Benchmark
+    public void nativeSegmentFill0(final ThreadState state) {
+        state.nativeSegment.fill((byte) 0);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+        private int length;
+        private long[] arr;
+        private Arena arena;
+        private MemorySegment nativeSegment;
+
+        public ThreadState() {
+        }
+
+        @Setup(Level.Trial)
+        public final void setupTrial() {
+            arena = Arena.ofShared();
+            nativeSegment = arena.allocate((long) length * Long.BYTES, Long.BYTES);
+        }
+
+        @Setup(Level.Iteration)
+        public final void setup() {
+            arr = new long[length];
+        }
+
+        @TearDown(Level.Trial)
+        public final void tearDownTrial() {
+            arena.close();
+        }
+    }
+}
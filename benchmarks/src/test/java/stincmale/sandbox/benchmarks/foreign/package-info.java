@@ -0,0 +1 @@
+package stincmale.sandbox.benchmarks.foreign;
@@ -0,0 +1,243 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.ListStatistics;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+
+/**
+ * Runs benchmarks with as many iterations as they need instead of the fixed numbers
+ * specified by {@link Options}.
+ * <ul>
+ *     <li>warmup lasts until the coefficient of variation (CV) of the scores of
+ *     {@value #WINDOW} consecutive iterations does not exceed {@value #MAX_WARMUP_CV};</li>
+ *     <li>measurement lasts until the half-width of the {@value #CONFIDENCE} confidence interval
+ *     does not exceed {@value #MAX_RELATIVE_ERROR} of the mean score;</li>
+ *     <li>a benchmark (with specific parameters) runs for no longer than the time budget
+ *     specified by {@link JmhOptions}, even if the above conditions are not met.</li>
+ * </ul>
+ * <p>
+ * JMH cannot end warmup or measurement depending on the scores, so each benchmark runs in
+ * a single fork without JMH warmup iterations, which allows telling where the steady state
+ * begins from the scores. If the conditions are not met, the benchmark is run again
+ * in a new fork with twice as many iterations, so that at most about half of the time is wasted.
+ * Note that the variance between forks is not accounted for.</p>
+ */
+public final class AdaptiveRunner {
+    public static final int WINDOW = 5;
+    public static final double MAX_WARMUP_CV = 0.02;
+    public static final double CONFIDENCE = 0.99;
+    public static final double MAX_RELATIVE_ERROR = 0.01;
+    private static final int INITIAL_ITERATIONS = 4 * WINDOW;
+    private static final TimeValue DEFAULT_ITERATION_TIME = milliseconds(100);
+
+    private AdaptiveRunner() {
+    }
+
+    /**
+     * Runs benchmarks as described in {@link AdaptiveRunner},
+     * and prints the numbers of iterations actually used.
+     *
+     * @param budget The time budget for measuring a benchmark with specific parameters.
+     * The time spent on forking JVMs and on setup is not included.
+     * @return The results of the last run of each benchmark without the iterations
+     * before the steady state, or with all iterations if there is no steady state.
+     * Note that JMH computes the score errors of these results at its own confidence level,
+     * not at {@value #CONFIDENCE}.
+     */
+    public static final Collection<RunResult> run(final Options options, final Duration budget)
+            throws RunnerException {
+        final TimeValue iterationTime = options.getMeasurementTime()
+                .orElse(DEFAULT_ITERATION_TIME);
+        final long budgetIterations = Math.max(INITIAL_ITERATIONS,
+                budget.toNanos() / iterationTime.convertTo(TimeUnit.NANOSECONDS));
+        final List<Adaptation> adaptations = new ArrayList<>();
+        for (final RunResult initial : run(options, iterationTime, INITIAL_ITERATIONS)) {
+            Adaptation adaptation = Adaptation.of(initial, INITIAL_ITERATIONS);
+            int iterations = INITIAL_ITERATIONS;
+            while (!adaptation.converged()
+                    && adaptation.iterationsRun() + 2L * iterations <= budgetIterations) {
+                iterations *= 2;
+                final ChainedOptionsBuilder single = narrow(options, initial.getParams());
+                for (final RunResult result : run(single.build(), iterationTime, iterations)) {
+                    adaptation = Adaptation.of(result, adaptation.iterationsRun() + iterations);
+                }
+            }
+            adaptations.add(adaptation);
+        }
+        print(adaptations, iterationTime);
+        return adaptations.stream()
+                .map(Adaptation::steadyStateResult)
+                .toList();
+    }
+
+    private static final Collection<RunResult> run(
+            final Options options, final TimeValue iterationTime, final int iterations)
+            throws RunnerException {
+        return new Runner(new OptionsBuilder()
+                .parent(options)
+                .forks(1)
+                .warmupIterations(0)
+                .measurementTime(iterationTime)
+                .measurementIterations(iterations)
+                .build())
+                .run();
+    }
+
+    /**
+     * Returns options that run only the benchmark specified by {@code params}.
+     * Includes of {@code options} cannot be overridden, hence all other benchmarks are excluded.
+     */
+    private static final ChainedOptionsBuilder narrow(
+            final Options options, final BenchmarkParams params) {
+        final ChainedOptionsBuilder result = new OptionsBuilder()
+                .parent(options)
+                .exclude("^(?!" + Pattern.quote(params.getBenchmark()) + "$)");
+        for (final String paramKey : params.getParamsKeys()) {
+            result.param(paramKey, params.getParam(paramKey));
+        }
+        return result;
+    }
+
+    private static final void print(
+            final Collection<Adaptation> adaptations, final TimeValue iterationTime) {
+        System.out.printf(Locale.ROOT, "%n# non-JMH: adaptive runs, iterations of %s, "
+                        + "steady state when CV over %d iterations <= %.1f%%, "
+                        + "converged when %.1f%% CI half-width <= %.1f%% of the mean%n",
+                iterationTime, WINDOW, MAX_WARMUP_CV * 100, CONFIDENCE * 100,
+                MAX_RELATIVE_ERROR * 100);
+        System.out.printf(Locale.ROOT, "%-60s %7s %12s %7s %30s  %s%n",
+                "benchmark", "warmup", "measurement", "total", "score", "status");
+        for (final Adaptation adaptation : adaptations) {
+            final boolean steady = adaptation.steady();
+            System.out.printf(Locale.ROOT, "%-60s %7s %12s %7d %30s  %s%n",
+                    JmhRunner.describe(adaptation.result()),
+                    steady ? Integer.toString(adaptation.warmupIterations()) : "-",
+                    steady ? Integer.toString(adaptation.measurementIterations()) : "-",
+                    adaptation.iterationsRun(),
+                    steady
+                            ? String.format(Locale.ROOT, "%.3f +- %.3f %s",
+                                    adaptation.statistics()
+                                            .getMean(),
+                                    adaptation.statistics()
+                                            .getMeanErrorAt(CONFIDENCE),
+                                    adaptation.result()
+                                            .getPrimaryResult()
+                                            .getScoreUnit())
+                            : "-",
+                    adaptation.converged()
+                            ? "converged"
+                            : steady
+                                    ? "budget exhausted, the confidence interval is too wide"
+                                    : "budget exhausted, no steady state");
+        }
+    }
+
+    /**
+     * The outcome of running a benchmark in a single fork.
+     *
+     * @param iterationsRun The number of iterations run in all forks of the benchmark so far.
+     * @param warmupIterations The number of iterations before the steady state,
+     * or -1 if there is no steady state.
+     * @param statistics The statistics of the scores in the steady state.
+     */
+    private record Adaptation(
+            RunResult result, long iterationsRun,
+            int warmupIterations, int measurementIterations, ListStatistics statistics) {
+        private static Adaptation of(final RunResult result, final long iterationsRun) {
+            final double[] scores = scores(result);
+            final int steadyStateStart = steadyStateStart(scores);
+            final int warmupIterations = steadyStateStart < 0 ? scores.length : steadyStateStart;
+            return new Adaptation(result, iterationsRun, steadyStateStart,
+                    scores.length - warmupIterations,
+                    statistics(scores, warmupIterations, scores.length));
+        }
+
+        private boolean steady() {
+            return warmupIterations >= 0;
+        }
+
+        /**
+         * Returns {@link #result()} without the iterations before the steady state,
+         * or {@link #result()} if there is no steady state.
+         * Benchmark-level results, e.g., produced by profilers, are retained as is.
+         */
+        private RunResult steadyStateResult() {
+            if (!steady()) {
+                return result;
+            }
+            final List<IterationResult> iterations = new ArrayList<>();
+            result.getBenchmarkResults()
+                    .forEach(benchmarkResult -> iterations.addAll(
+                            benchmarkResult.getIterationResults()));
+            final BenchmarkResult steadyState = new BenchmarkResult(result.getParams(),
+                    iterations.subList(warmupIterations, iterations.size()),
+                    result.getBenchmarkResults()
+                            .iterator()
+                            .next()
+                            .getMetadata());
+            result.getBenchmarkResults()
+                    .forEach(benchmarkResult -> benchmarkResult.getBenchmarkResults()
+                            .values()
+                            .forEach(steadyState::addBenchmarkResult));
+            return new RunResult(result.getParams(), List.of(steadyState));
+        }
+
+        private boolean converged() {
+            return steady() && measurementIterations >= WINDOW
+                    && statistics.getMeanErrorAt(CONFIDENCE)
+                    <= MAX_RELATIVE_ERROR * Math.abs(statistics.getMean());
+        }
+
+        private static double[] scores(final RunResult result) {
+            final List<Double> scores = new ArrayList<>();
+            for (final BenchmarkResult benchmarkResult : result.getBenchmarkResults()) {
+                for (final IterationResult iteration : benchmarkResult.getIterationResults()) {
+                    scores.add(iteration.getPrimaryResult()
+                            .getScore());
+                }
+            }
+            return scores.stream()
+                    .mapToDouble(Double::doubleValue)
+                    .toArray();
+        }
+
+        /**
+         * Returns the index of the first iteration of the first window of {@value #WINDOW}
+         * iterations with the CV not exceeding {@value #MAX_WARMUP_CV}, or -1 if there is none.
+         */
+        private static int steadyStateStart(final double[] scores) {
+            for (int i = 0; i + WINDOW <= scores.length; i++) {
+                final ListStatistics window = statistics(scores, i, i + WINDOW);
+                if (window.getStandardDeviation() <= MAX_WARMUP_CV * Math.abs(window.getMean())) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static ListStatistics statistics(
+                final double[] scores, final int from, final int to) {
+            final ListStatistics result = new ListStatistics();
+            for (int i = from; i < to; i++) {
+                result.addValue(scores[i]);
+            }
+            return result;
+        }
+    }
+}
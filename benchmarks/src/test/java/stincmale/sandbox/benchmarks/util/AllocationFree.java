@@ -0,0 +1,17 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link org.openjdk.jmh.annotations.Benchmark} method that must not allocate
+ * once compiled by C2, which is verified by {@link AllocationFreeChecker}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AllocationFree {
+}
@@ -0,0 +1,118 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import static stincmale.sandbox.benchmarks.util.JmhResults.benchmarkMethodName;
+import static stincmale.sandbox.benchmarks.util.JmhResults.secondaryScore;
+
+/**
+ * Verifies that benchmarks marked with {@link AllocationFree} do not allocate.
+ */
+public final class AllocationFreeChecker {
+    /**
+     * The maximal normalized allocation rate ({@code gc.alloc.rate.norm}) that is considered
+     * to be zero. It is not exactly zero because JMH infrastructure occasionally allocates,
+     * which is amortized over all operations.
+     */
+    public static final double MAX_ALLOCATED_BYTES_PER_OP = 0.01;
+
+    private AllocationFreeChecker() {
+    }
+
+    /**
+     * Runs all {@link AllocationFree} benchmarks declared in {@code benchmarkClass}
+     * with {@link GCProfiler} in a single thread, and fails if any of them allocates more than
+     * {@value #MAX_ALLOCATED_BYTES_PER_OP} bytes per operation.
+     * <p>
+     * Warmup is not shortened in the dry-run mode because allocations are eliminated
+     * only by C2.</p>
+     *
+     * @throws AssertionError If a benchmark allocates.
+     */
+    public static final void check(final Class<?> benchmarkClass) throws RunnerException {
+        final Set<String> benchmarks = allocationFreeBenchmarks(benchmarkClass);
+        final Collection<RunResult> results = new Runner(newOptionsBuilder(null)
+                .forks(1)
+                .warmupTime(milliseconds(200))
+                .warmupIterations(5)
+                .measurementTime(milliseconds(200))
+                .measurementIterations(3)
+                .include(includeBenchmarks(benchmarkClass,
+                        benchmarks.stream()
+                                .collect(Collectors.joining("|", "\\.(", ")$"))))
+                .addProfiler(GCProfiler.class)
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .build())
+                .run();
+        final List<String> violations = new ArrayList<>();
+        final Set<String> notRun = new HashSet<>(benchmarks);
+        System.out.printf(Locale.ROOT, "%n# non-JMH: allocation-free benchmarks, B/op, max %s%n",
+                MAX_ALLOCATED_BYTES_PER_OP);
+        for (final RunResult result : results) {
+            final String benchmark = describe(result);
+            final double allocatedBytesPerOp = secondaryScore(result, "gc.alloc.rate.norm");
+            System.out.printf(Locale.ROOT, "%-60s %12.5f%n", benchmark, allocatedBytesPerOp);
+            notRun.remove(benchmarkMethodName(result));
+            if (!(allocatedBytesPerOp <= MAX_ALLOCATED_BYTES_PER_OP)) {
+                violations.add(String.format(Locale.ROOT, "%s allocates %s B/op",
+                        benchmark, allocatedBytesPerOp));
+            }
+        }
+        notRun.forEach(benchmark -> violations.add(benchmark + " was not run"));
+        if (!violations.isEmpty()) {
+            throw new AssertionError(String.join(System.lineSeparator(), violations));
+        }
+    }
+
+    private static final Set<String> allocationFreeBenchmarks(final Class<?> benchmarkClass) {
+        final Set<String> result = new HashSet<>();
+        for (final Method method : benchmarkClass.getMethods()) {
+            if (method.isAnnotationPresent(AllocationFree.class)) {
+                if (!method.isAnnotationPresent(Benchmark.class)) {
+                    throw new IllegalArgumentException(String.format(Locale.ROOT,
+                            "%s is annotated with %s, but is not a benchmark",
+                            method, AllocationFree.class.getSimpleName()));
+                }
+                result.add(method.getName());
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT,
+                    "%s has no benchmarks annotated with %s",
+                    benchmarkClass, AllocationFree.class.getSimpleName()));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the benchmark method name followed by the values of its parameters, if any.
+     */
+    private static final String describe(final RunResult result) {
+        final String params = result.getParams()
+                .getParamsKeys()
+                .stream()
+                .map(key -> key + "=" + result.getParams()
+                        .getParam(key))
+                .collect(Collectors.joining(", "));
+        return params.isEmpty()
+                ? benchmarkMethodName(result)
+                : benchmarkMethodName(result) + " (" + params + ")";
+    }
+}
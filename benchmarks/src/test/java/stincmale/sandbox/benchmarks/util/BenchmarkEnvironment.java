@@ -0,0 +1,293 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Describes the machine and the JVM benchmarks run on, and warns about conditions
+ * that make results noisy, or not comparable with results produced on other machines.
+ * The information about the machine is read from {@code /proc} and {@code /sys},
+ * and is {@value #UNKNOWN} if not available, e.g., on OSs other than Linux,
+ * or in containers and virtual machines that do not expose it.
+ * <p>
+ * Use {@link BenchmarkEnvironmentProfiler} to attach the environment to benchmark results.</p>
+ */
+public final class BenchmarkEnvironment {
+    public static final String UNKNOWN = "unknown";
+    /**
+     * The share of the CPU time used by other processes, above which the machine
+     * is considered to be loaded.
+     */
+    public static final double MAX_OTHER_CPU_USAGE_PERCENT = 10;
+    private static final Path CPU_INFO = Path.of("/proc/cpuinfo");
+    private static final Path STAT = Path.of("/proc/stat");
+    private static final Path SELF_STAT = Path.of("/proc/self/stat");
+    private static final Path MEM_INFO = Path.of("/proc/meminfo");
+    private static final Path KERNEL_RELEASE = Path.of("/proc/sys/kernel/osrelease");
+    private static final Path SYS_CPU = Path.of("/sys/devices/system/cpu");
+    /**
+     * The duration during which the CPU usage is sampled.
+     */
+    private static final long CPU_USAGE_SAMPLING_MILLIS = 500;
+
+    private final Map<String, String> properties;
+    private final List<String> warnings;
+
+    private BenchmarkEnvironment(
+            final Map<String, String> properties, final List<String> warnings) {
+        this.properties = properties;
+        this.warnings = warnings;
+    }
+
+    /**
+     * Captures the environment. Takes about {@value #CPU_USAGE_SAMPLING_MILLIS} ms,
+     * because the CPU usage by other processes is sampled.
+     *
+     * @param params The parameters of the benchmark, which specify the JVM forked by JMH.
+     */
+    public static final BenchmarkEnvironment capture(final BenchmarkParams params) {
+        final Collection<String> benchmarkJvmArgs = params.getJvmArgs();
+        final Map<String, String> properties = new LinkedHashMap<>();
+        final List<String> warnings = new ArrayList<>();
+        final List<String> cpuInfo = lines(CPU_INFO);
+        final long logicalCpus = cpuInfo.stream()
+                .filter(line -> line.startsWith("processor"))
+                .count();
+        properties.put("cpu.model", cpuInfoValue(cpuInfo, "model name").orElse(UNKNOWN));
+        properties.put("cpu.logical", logicalCpus == 0 ? UNKNOWN : Long.toString(logicalCpus));
+        properties.put("cpu.cores", physicalCores(cpuInfo).map(Object::toString)
+                .orElse(UNKNOWN));
+        final Optional<Boolean> smt = read(SYS_CPU.resolve("smt/active")).map("1"::equals);
+        properties.put("cpu.smt", smt.map(active -> active ? "active" : "inactive")
+                .orElse(UNKNOWN));
+        final Optional<String> governor = read(SYS_CPU.resolve("cpu0/cpufreq/scaling_governor"));
+        properties.put("cpu.governor", governor.orElse(UNKNOWN));
+        properties.put("cpu.frequency", read(SYS_CPU.resolve("cpu0/cpufreq/scaling_cur_freq"))
+                .map(kHz -> Long.parseLong(kHz) / 1000 + " MHz")
+                .or(() -> cpuInfoValue(cpuInfo, "cpu MHz").map(mHz -> mHz + " MHz"))
+                .orElse(UNKNOWN));
+        final Optional<Boolean> turbo = turbo();
+        properties.put("cpu.turbo", turbo.map(enabled -> enabled ? "enabled" : "disabled")
+                .orElse(UNKNOWN));
+        final Optional<Double> otherCpuUsage = otherCpuUsagePercent();
+        properties.put("cpu.usage.other", otherCpuUsage
+                .map(usage -> String.format(Locale.ROOT, "%.1f%%", usage))
+                .orElse(UNKNOWN));
+        properties.put("os.kernel", read(KERNEL_RELEASE).orElse(UNKNOWN));
+        final Optional<Long> memAvailableMiB = memInfoMiB("MemAvailable");
+        properties.put("memory.total", memInfoMiB("MemTotal").map(mib -> mib + " MiB")
+                .orElse(UNKNOWN));
+        properties.put("memory.available", memAvailableMiB.map(mib -> mib + " MiB")
+                .orElse(UNKNOWN));
+        properties.put("jvm", params.getJvm());
+        properties.put("jvm.version", String.format(Locale.ROOT, "%s %s",
+                params.getVmName(), params.getVmVersion()));
+        properties.put("jvm.args", String.join(" ", benchmarkJvmArgs));
+        properties.put("jvm.heap", benchmarkJvmArgs.stream()
+                .filter(arg -> arg.startsWith("-Xms") || arg.startsWith("-Xmx"))
+                .collect(Collectors.joining(" ")));
+        if (governor.isPresent() && !"performance".equals(governor.get())) {
+            warnings.add(String.format(Locale.ROOT,
+                    "the CPU frequency governor is %s, consider using performance",
+                    governor.get()));
+        }
+        if (turbo.orElse(false)) {
+            warnings.add("turbo boost is enabled, which makes the CPU frequency depend on "
+                    + "the temperature and the number of busy cores");
+        }
+        if (otherCpuUsage.isPresent() && otherCpuUsage.get() > MAX_OTHER_CPU_USAGE_PERCENT) {
+            warnings.add(String.format(Locale.ROOT,
+                    "the machine is loaded, other processes use %.1f%% of the CPU time",
+                    otherCpuUsage.get()));
+        }
+        final Optional<Long> maxHeapMiB = maxHeapMiB(benchmarkJvmArgs);
+        if (maxHeapMiB.isPresent() && memAvailableMiB.isPresent()
+                && maxHeapMiB.get() > memAvailableMiB.get()) {
+            warnings.add(String.format(Locale.ROOT,
+                    "the max heap size %d MiB is greater than the available memory %d MiB",
+                    maxHeapMiB.get(), memAvailableMiB.get()));
+        }
+        if (smt.orElse(false)) {
+            warnings.add("SMT is used, benchmarks with multiple threads may share physical cores");
+        }
+        return new BenchmarkEnvironment(properties, warnings);
+    }
+
+    /**
+     * Returns the properties of the environment, e.g., {@code "cpu.model"},
+     * in the order they are printed.
+     */
+    public final Map<String, String> properties() {
+        return properties;
+    }
+
+    public final List<String> warnings() {
+        return warnings;
+    }
+
+    @Override
+    public final String toString() {
+        final StringBuilder sb = new StringBuilder();
+        properties.forEach((name, value) -> sb.append(String.format(Locale.ROOT,
+                "%-18s %s%n", name, value)));
+        warnings.forEach(warning -> sb.append(String.format(Locale.ROOT,
+                "WARNING: %s%n", warning)));
+        return sb.toString();
+    }
+
+    private static final Optional<Long> physicalCores(final List<String> cpuInfo) {
+        final List<String> coreIds = new ArrayList<>();
+        @Nullable
+        String physicalId = null;
+        for (final String line : cpuInfo) {
+            if (line.startsWith("physical id")) {
+                physicalId = value(line);
+            } else if (line.startsWith("core id")) {
+                coreIds.add(physicalId + ":" + value(line));
+            }
+        }
+        final long result = coreIds.stream()
+                .distinct()
+                .count();
+        return result == 0 ? Optional.empty() : Optional.of(result);
+    }
+
+    /**
+     * Returns {@code true} if turbo boost is enabled according to either the
+     * {@code intel_pstate} or the {@code acpi-cpufreq} driver.
+     */
+    private static final Optional<Boolean> turbo() {
+        return read(SYS_CPU.resolve("intel_pstate/no_turbo"))
+                .map("0"::equals)
+                .or(() -> read(SYS_CPU.resolve("cpufreq/boost"))
+                        .map("1"::equals));
+    }
+
+    /**
+     * Samples the CPU time used by all processes except for the current one,
+     * as a percentage of the CPU time available to all logical CPUs.
+     */
+    private static final Optional<Double> otherCpuUsagePercent() {
+        final Optional<long[]> start = cpuTicks();
+        try {
+            TimeUnit.MILLISECONDS.sleep(CPU_USAGE_SAMPLING_MILLIS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            return Optional.empty();
+        }
+        final Optional<long[]> end = cpuTicks();
+        if (start.isEmpty() || end.isEmpty()) {
+            return Optional.empty();
+        }
+        final long total = end.get()[0] - start.get()[0];
+        final long busy = end.get()[1] - start.get()[1];
+        final long self = end.get()[2] - start.get()[2];
+        return total <= 0
+                ? Optional.empty()
+                : Optional.of(Math.max(0, busy - self) * 100d / total);
+    }
+
+    /**
+     * Returns the total, busy, and current process clock ticks, respectively.
+     */
+    private static final Optional<long[]> cpuTicks() {
+        final Optional<String> cpu = lines(STAT).stream()
+                .filter(line -> line.startsWith("cpu "))
+                .findFirst();
+        final Optional<String> self = read(SELF_STAT);
+        if (cpu.isEmpty() || self.isEmpty()) {
+            return Optional.empty();
+        }
+        // cpu user nice system idle iowait irq softirq steal guest guest_nice
+        final String[] cpuTicks = cpu.get()
+                .trim()
+                .split("\\s+");
+        long total = 0;
+        for (int i = 1; i <= 8 && i < cpuTicks.length; i++) {
+            total += Long.parseLong(cpuTicks[i]);
+        }
+        final long idle = Long.parseLong(cpuTicks[4]) + Long.parseLong(cpuTicks[5]);
+        // the process name may contain spaces, but is enclosed in parentheses
+        final String[] selfTicks = self.get()
+                .substring(self.get()
+                        .lastIndexOf(')') + 2)
+                .split(" ");
+        // utime and stime are the 14th and the 15th fields
+        final long selfBusy = Long.parseLong(selfTicks[11]) + Long.parseLong(selfTicks[12]);
+        return Optional.of(new long[] {total, total - idle, selfBusy});
+    }
+
+    private static final Optional<Long> memInfoMiB(final String name) {
+        return lines(MEM_INFO).stream()
+                .filter(line -> line.startsWith(name + ":"))
+                .findFirst()
+                .map(line -> Long.parseLong(value(line).split(" ")[0]) / 1024);
+    }
+
+    /**
+     * Returns the max heap size specified via {@code -Xmx}, if any.
+     */
+    private static final Optional<Long> maxHeapMiB(final Collection<String> jvmArgs) {
+        return jvmArgs.stream()
+                .filter(arg -> arg.startsWith("-Xmx"))
+                .reduce((first, second) -> second)
+                .map(arg -> {
+                    final String size = arg.substring("-Xmx".length())
+                            .toLowerCase(Locale.ROOT);
+                    final long number = Long.parseLong(size.replaceAll("[kmgt]$", ""));
+                    return switch (size.charAt(size.length() - 1)) {
+                        case 'k' -> number / 1024;
+                        case 'm' -> number;
+                        case 'g' -> number * 1024;
+                        case 't' -> number * 1024 * 1024;
+                        default -> number / (1024 * 1024);
+                    };
+                });
+    }
+
+    private static final Optional<String> cpuInfoValue(
+            final List<String> cpuInfo, final String name) {
+        return cpuInfo.stream()
+                .filter(line -> line.startsWith(name))
+                .findFirst()
+                .map(BenchmarkEnvironment::value);
+    }
+
+    /**
+     * Returns the value from a {@code "name : value"} line.
+     */
+    private static final String value(final String line) {
+        return line.substring(line.indexOf(':') + 1)
+                .trim();
+    }
+
+    private static final Optional<String> read(final Path file) {
+        try {
+            return Optional.of(Files.readString(file)
+                    .trim());
+        } catch (final IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static final List<String> lines(final Path file) {
+        try {
+            return Files.readAllLines(file);
+        } catch (final IOException e) {
+            return List.of();
+        }
+    }
+}
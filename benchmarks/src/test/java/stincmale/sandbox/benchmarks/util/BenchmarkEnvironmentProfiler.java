@@ -0,0 +1,80 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.TextResult;
+
+/**
+ * Attaches the {@link BenchmarkEnvironment} a benchmark is run in to its results.
+ * The environment is captured before the first trial run in a specific JVM
+ * with specific arguments, and is printed when captured, so that warnings are seen
+ * before spending time on benchmarks. It is not captured again for other trials
+ * in the same JVM with the same arguments, because capturing takes time.
+ * <p>
+ * {@link JmhOptions#newOptionsBuilder(java.util.function.Consumer)} adds this profiler.</p>
+ */
+public final class BenchmarkEnvironmentProfiler implements ExternalProfiler {
+    private static final Map<List<String>, BenchmarkEnvironment> ENVIRONMENTS =
+            new ConcurrentHashMap<>();
+
+    @Nullable
+    private BenchmarkEnvironment environment;
+
+    public BenchmarkEnvironmentProfiler() {
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(final BenchmarkParams params) {
+        return List.of();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(final BenchmarkParams params) {
+        return List.of();
+    }
+
+    @Override
+    public void beforeTrial(final BenchmarkParams params) {
+        final List<String> jvmAndArgs = new ArrayList<>();
+        jvmAndArgs.add(params.getJvm());
+        jvmAndArgs.addAll(params.getJvmArgs());
+        environment = ENVIRONMENTS.computeIfAbsent(jvmAndArgs, key -> {
+            final BenchmarkEnvironment result = BenchmarkEnvironment.capture(params);
+            System.out.printf(Locale.ROOT, "%n# non-JMH: benchmark environment%n%s%n", result);
+            return result;
+        });
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterTrial(
+            final BenchmarkResult br, final long pid, final File stdOut, final File stdErr) {
+        return environment == null
+                ? List.of()
+                : List.of(new TextResult(environment.toString(), "environment"));
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Attaches the description of the machine and the JVM to results";
+    }
+}
@@ -0,0 +1,88 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.TextResult;
+
+/**
+ * Launches forked JVMs via {@code taskset}, which restricts them to exactly as many CPUs
+ * as there are benchmark threads, placed according to a {@link CpuTopology}.
+ * As long as benchmark threads are busy, the OS runs each of them on its own CPU,
+ * so the threads run on the CPUs the topology describes.
+ * JIT compiler, GC, and other JVM threads share these CPUs with benchmark threads.
+ * JIT compilation mostly happens during warmup,
+ * so the warmup should be long enough for the compilation of benchmarks to finish.
+ * <p>
+ * Forked JVMs are also given {@code -XX:ActiveProcessorCount} equal to the number of processors
+ * available to the JVM running JMH, because otherwise JVM ergonomics, e.g., the number of
+ * JIT compiler and GC threads, would depend on the number of benchmark threads.</p>
+ * <p>
+ * Use {@link JmhOptions#pinCpus(org.openjdk.jmh.runner.options.ChainedOptionsBuilder,
+ * CpuTopology)} instead of adding this profiler directly.</p>
+ */
+public final class CpuAffinityProfiler implements ExternalProfiler {
+    private final CpuTopology topology;
+    private String cpuList;
+
+    /**
+     * Creates a profiler that is configured via {@code initLine}.
+     *
+     * @param initLine The name of a {@link CpuTopology}.
+     */
+    public CpuAffinityProfiler(final String initLine) {
+        topology = CpuTopology.valueOf(initLine.trim());
+        cpuList = "";
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(final BenchmarkParams params) {
+        final int threads = params.getThreads();
+        cpuList = topology.cpus(threads)
+                .orElseThrow(() -> new IllegalStateException(String.format(Locale.ROOT,
+                        "The machine does not have %d CPUs with the %s topology",
+                        threads, topology)))
+                .stream()
+                .map(Object::toString)
+                .collect(Collectors.joining(","));
+        return List.of("taskset", "--cpu-list", cpuList);
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(final BenchmarkParams params) {
+        return List.of("-XX:ActiveProcessorCount=" + Runtime.getRuntime()
+                .availableProcessors());
+    }
+
+    @Override
+    public void beforeTrial(final BenchmarkParams params) {
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterTrial(
+            final BenchmarkResult br, final long pid, final File stdOut, final File stdErr) {
+        return List.of(new TextResult(
+                String.format(Locale.ROOT, "%s, CPUs %s%n", topology, cpuList), "cpu.topology"));
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Runs forked JVMs on CPUs placed according to a CPU topology";
+    }
+}
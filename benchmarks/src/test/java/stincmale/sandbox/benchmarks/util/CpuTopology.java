@@ -0,0 +1,182 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Specifies how the CPUs a benchmark runs on are placed relative to each other.
+ * The CPU topology is read from {@code /sys/devices/system/cpu}.
+ *
+ * @see JmhOptions#pinCpus(org.openjdk.jmh.runner.options.ChainedOptionsBuilder, CpuTopology)
+ */
+public enum CpuTopology {
+    /**
+     * SMT siblings, i.e., logical CPUs of the same physical core, which share all caches.
+     */
+    SAME_CORE {
+        @Override
+        Optional<List<Integer>> select(final List<Cpu> cpus, final int numberOfCpus) {
+            return cpus.stream()
+                    .collect(Collectors.groupingBy(cpu -> List.of(cpu.pkg(), cpu.core()),
+                            LinkedHashMap::new, Collectors.toList()))
+                    .values()
+                    .stream()
+                    .filter(siblings -> siblings.size() >= numberOfCpus)
+                    .findFirst()
+                    .map(siblings -> ids(siblings.subList(0, numberOfCpus)));
+        }
+    },
+    /**
+     * Different physical cores of the same socket, which share the last level cache.
+     */
+    SAME_SOCKET {
+        @Override
+        Optional<List<Integer>> select(final List<Cpu> cpus, final int numberOfCpus) {
+            return firstCpuOfEachCore(cpus).values()
+                    .stream()
+                    .filter(packageCpus -> packageCpus.size() >= numberOfCpus)
+                    .findFirst()
+                    .map(packageCpus -> ids(packageCpus.subList(0, numberOfCpus)));
+        }
+    },
+    /**
+     * Physical cores of different sockets in the round-robin order,
+     * so that CPUs share as few caches as possible.
+     * Requires at least two sockets.
+     */
+    SPREAD {
+        @Override
+        Optional<List<Integer>> select(final List<Cpu> cpus, final int numberOfCpus) {
+            final List<List<Cpu>> packages = new ArrayList<>(firstCpuOfEachCore(cpus).values());
+            if (packages.size() < 2 || packages.stream()
+                    .mapToInt(List::size)
+                    .sum() < numberOfCpus) {
+                return Optional.empty();
+            }
+            final List<Cpu> result = new ArrayList<>();
+            for (int i = 0; result.size() < numberOfCpus; i++) {
+                for (final List<Cpu> packageCpus : packages) {
+                    if (i < packageCpus.size() && result.size() < numberOfCpus) {
+                        result.add(packageCpus.get(i));
+                    }
+                }
+            }
+            return Optional.of(ids(result));
+        }
+    };
+
+    /**
+     * The system property that {@link JmhOptions#pinCpus} specifies for forked JVMs,
+     * which allows telling results produced with different {@link CpuTopology}s apart.
+     */
+    public static final String PROPERTY = "sandbox.benchmark.cpuTopology";
+    private static final Path SYS_CPU = Path.of("/sys/devices/system/cpu");
+
+    /**
+     * Returns the IDs of {@code numberOfCpus} online CPUs placed according to this topology,
+     * or an empty {@link Optional} if the machine does not have such CPUs,
+     * or its CPU topology is not available.
+     */
+    public final Optional<List<Integer>> cpus(final int numberOfCpus) {
+        return select(onlineCpus(), numberOfCpus);
+    }
+
+    /**
+     * Returns the {@link CpuTopology} the {@code result} was produced with,
+     * or an empty {@link Optional} if CPUs were not pinned.
+     */
+    public static final Optional<CpuTopology> of(final RunResult result) {
+        return result.getParams()
+                .getJvmArgs()
+                .stream()
+                .filter(arg -> arg.startsWith(jvmArgPrefix()))
+                .findFirst()
+                .map(arg -> valueOf(arg.substring(jvmArgPrefix().length())));
+    }
+
+    final String jvmArg() {
+        return jvmArgPrefix() + name();
+    }
+
+    abstract Optional<List<Integer>> select(List<Cpu> cpus, int numberOfCpus);
+
+    private static final String jvmArgPrefix() {
+        return "-D" + PROPERTY + "=";
+    }
+
+    private static final List<Integer> ids(final List<Cpu> cpus) {
+        return cpus.stream()
+                .map(Cpu::id)
+                .toList();
+    }
+
+    /**
+     * Returns the first logical CPU of each physical core grouped by socket.
+     *
+     * @param cpus Ordered by {@linkplain Cpu#id() ID}.
+     */
+    private static final Map<Integer, List<Cpu>> firstCpuOfEachCore(final List<Cpu> cpus) {
+        final Map<List<Integer>, Cpu> cores = new LinkedHashMap<>();
+        cpus.forEach(cpu -> cores.putIfAbsent(List.of(cpu.pkg(), cpu.core()), cpu));
+        return cores.values()
+                .stream()
+                .collect(Collectors.groupingBy(Cpu::pkg, TreeMap::new, Collectors.toList()));
+    }
+
+    /**
+     * Returns online CPUs ordered by {@linkplain Cpu#id() ID},
+     * or an empty list if the CPU topology is not available.
+     */
+    private static final List<Cpu> onlineCpus() {
+        try {
+            final List<Cpu> result = new ArrayList<>();
+            for (final int id : parseCpuList(Files.readString(SYS_CPU.resolve("online")))) {
+                final Path topology = SYS_CPU.resolve("cpu" + id)
+                        .resolve("topology");
+                result.add(new Cpu(id,
+                        Integer.parseInt(Files.readString(topology.resolve("core_id"))
+                                .trim()),
+                        Integer.parseInt(Files.readString(topology.resolve("physical_package_id"))
+                                .trim())));
+            }
+            return result;
+        } catch (final IOException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Parses a CPU list in the format used by the Linux kernel, e.g., {@code "0-3,8,10-11"}.
+     */
+    private static final List<Integer> parseCpuList(final String cpuList) {
+        final List<Integer> result = new ArrayList<>();
+        for (final String range : cpuList.trim()
+                .split(",")) {
+            final String[] bounds = range.split("-");
+            final int first = Integer.parseInt(bounds[0]);
+            final int last = Integer.parseInt(bounds[bounds.length - 1]);
+            for (int id = first; id <= last; id++) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A logical CPU.
+     *
+     * @param core The ID of the physical core, which is unique only within the socket.
+     * @param pkg The ID of the socket.
+     */
+    record Cpu(int id, int core, int pkg) {
+    }
+}
@@ -0,0 +1,176 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.math.BigInteger;
+
+/**
+ * Divides by a positive divisor that is not known at compile time, but does not change,
+ * via multiplication by a precomputed reciprocal instead of a division instruction.
+ * C2 does a similar optimization by itself, but only when the divisor is a compile-time constant.
+ * <p>
+ * The reciprocal is {@code M = ceil(2^F / d)}, where {@code F} is twice the width of
+ * the dividend, which guarantees the exact result for all dividends
+ * (see <a href="https://arxiv.org/abs/1902.01961">Daniel Lemire, Owen Kaser, Nathan Kurz,
+ * "Faster Remainder by Direct Computation: Applications to Compilers and Software Libraries"</a>).
+ * Dividends of any sign are supported, and the results are the same as those of
+ * the {@code /} and {@code %} operators, and of {@link Math#floorMod(int, int)}.</p>
+ */
+public final class FastDivisor {
+    private FastDivisor() {
+    }
+
+    /**
+     * Creates a divisor of {@code int} dividends.
+     *
+     * @param divisor Must be positive.
+     */
+    public static final OfInt of(final int divisor) {
+        return new OfInt(divisor);
+    }
+
+    /**
+     * Creates a divisor of {@code long} dividends.
+     *
+     * @param divisor Must be positive.
+     */
+    public static final OfLong of(final long divisor) {
+        return new OfLong(divisor);
+    }
+
+    public static final class OfInt {
+        private final int divisor;
+        /**
+         * The unsigned 64-bit reciprocal {@code ceil(2^64 / divisor)},
+         * or 0 if {@link #divisor} is 1.
+         */
+        private final long m;
+
+        private OfInt(final int divisor) {
+            if (divisor <= 0) {
+                throw new IllegalArgumentException("divisor=" + divisor);
+            }
+            this.divisor = divisor;
+            m = divisor == 1 ? 0 : Long.divideUnsigned(-1L, divisor) + 1;
+        }
+
+        public int divisor() {
+            return divisor;
+        }
+
+        /**
+         * Returns the same as {@code dividend / divisor()}.
+         */
+        public int div(final int dividend) {
+            if (m == 0) {
+                return dividend;
+            }
+            // the absolute value of Integer.MIN_VALUE fits in the unsigned 32-bit range
+            final long absDividend = Math.abs((long) dividend);
+            final int result = (int) Math.unsignedMultiplyHigh(m, absDividend);
+            return dividend < 0 ? -result : result;
+        }
+
+        /**
+         * Returns the same as {@code dividend % divisor()}.
+         */
+        public int mod(final int dividend) {
+            final long absDividend = Math.abs((long) dividend);
+            // the fractional part of dividend / divisor scaled by 2^64, multiplied by divisor
+            final int result = (int) Math.unsignedMultiplyHigh(m * absDividend, divisor);
+            return dividend < 0 ? -result : result;
+        }
+
+        /**
+         * Returns the same as {@link Math#floorMod(int, int) Math.floorMod(dividend, divisor())}.
+         */
+        public int floorMod(final int dividend) {
+            final int result = mod(dividend);
+            return result < 0 ? result + divisor : result;
+        }
+    }
+
+    public static final class OfLong {
+        private static final BigInteger TWO_POW_128 = BigInteger.ONE.shiftLeft(128);
+
+        private final long divisor;
+        /**
+         * The high 64 bits of the unsigned 128-bit reciprocal {@code ceil(2^128 / divisor)},
+         * which is 0 if {@link #divisor} is 1.
+         */
+        private final long mHigh;
+        /**
+         * The low 64 bits of the reciprocal.
+         */
+        private final long mLow;
+
+        private OfLong(final long divisor) {
+            if (divisor <= 0) {
+                throw new IllegalArgumentException("divisor=" + divisor);
+            }
+            this.divisor = divisor;
+            if (divisor == 1) {
+                mHigh = 0;
+                mLow = 0;
+            } else {
+                final BigInteger bigDivisor = BigInteger.valueOf(divisor);
+                // ceil(a / b) == floor((a + b - 1) / b)
+                final BigInteger m = TWO_POW_128.add(bigDivisor)
+                        .subtract(BigInteger.ONE)
+                        .divide(bigDivisor);
+                mHigh = m.shiftRight(Long.SIZE)
+                        .longValue();
+                mLow = m.longValue();
+            }
+        }
+
+        public long divisor() {
+            return divisor;
+        }
+
+        /**
+         * Returns the same as {@code dividend / divisor()}.
+         */
+        public long div(final long dividend) {
+            if (divisor == 1) {
+                return dividend;
+            }
+            // the absolute value of Long.MIN_VALUE is Long.MIN_VALUE, which is correct if unsigned
+            final long absDividend = Math.abs(dividend);
+            final long result = unsignedDiv(absDividend);
+            return dividend < 0 ? -result : result;
+        }
+
+        /**
+         * Returns the same as {@code dividend % divisor()}.
+         */
+        public long mod(final long dividend) {
+            if (divisor == 1) {
+                return 0;
+            }
+            final long absDividend = Math.abs(dividend);
+            final long result = absDividend - unsignedDiv(absDividend) * divisor;
+            return dividend < 0 ? -result : result;
+        }
+
+        /**
+         * Returns the same as
+         * {@link Math#floorMod(long, long) Math.floorMod(dividend, divisor())}.
+         */
+        public long floorMod(final long dividend) {
+            final long result = mod(dividend);
+            return result < 0 ? result + divisor : result;
+        }
+
+        /**
+         * Returns the high 64 bits of the unsigned 192-bit product of the reciprocal
+         * and the unsigned {@code dividend}.
+         */
+        private long unsignedDiv(final long dividend) {
+            final long lowProductHigh = Math.unsignedMultiplyHigh(mLow, dividend);
+            final long highProductLow = mHigh * dividend;
+            final long highProductHigh = Math.unsignedMultiplyHigh(mHigh, dividend);
+            final long middle = highProductLow + lowProductHigh;
+            final long carry = Long.compareUnsigned(middle, highProductLow) < 0 ? 1 : 0;
+            return highProductHigh + carry;
+        }
+    }
+}
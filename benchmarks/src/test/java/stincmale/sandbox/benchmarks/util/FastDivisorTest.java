@@ -0,0 +1,75 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+final class FastDivisorTest {
+    private static final Random RND = new Random(1L);
+
+    @Test
+    final void illegalDivisor() {
+        assertThrows(IllegalArgumentException.class, () -> FastDivisor.of(0));
+        assertThrows(IllegalArgumentException.class, () -> FastDivisor.of(-1));
+        assertThrows(IllegalArgumentException.class, () -> FastDivisor.of(0L));
+        assertThrows(IllegalArgumentException.class, () -> FastDivisor.of(Long.MIN_VALUE));
+    }
+
+    @Test
+    final void ofInt() {
+        final int[] divisors = IntStream.concat(
+                IntStream.of(1, 2, 3, 7, 10, 1023, 1024, 1025, Integer.MAX_VALUE - 1,
+                        Integer.MAX_VALUE),
+                RND.ints(100, 1, Integer.MAX_VALUE))
+                .toArray();
+        for (final int divisor : divisors) {
+            final FastDivisor.OfInt fastDivisor = FastDivisor.of(divisor);
+            final int[] dividends = IntStream.concat(
+                    IntStream.of(0, 1, -1, divisor - 1, divisor, divisor + 1, -divisor,
+                            -divisor - 1, -divisor + 1, Integer.MIN_VALUE, Integer.MIN_VALUE + 1,
+                            Integer.MAX_VALUE, Integer.MAX_VALUE - 1),
+                    RND.ints(1000))
+                    .toArray();
+            for (final int dividend : dividends) {
+                final String message = dividend + " / " + divisor;
+                assertEquals(dividend / divisor, fastDivisor.div(dividend), message);
+                assertEquals(dividend % divisor, fastDivisor.mod(dividend), message);
+                assertEquals(Math.floorMod(dividend, divisor), fastDivisor.floorMod(dividend),
+                        message);
+            }
+        }
+    }
+
+    @Test
+    final void ofLong() {
+        final long[] divisors = LongStream.concat(
+                LongStream.of(1, 2, 3, 7, 10, 1023, 1024, 1025, Integer.MAX_VALUE,
+                        1L << 32, (1L << 32) + 1, 1L << 62, Long.MAX_VALUE - 1, Long.MAX_VALUE),
+                LongStream.concat(
+                        RND.longs(100, 1, Integer.MAX_VALUE),
+                        RND.longs(100, 1, Long.MAX_VALUE)))
+                .toArray();
+        for (final long divisor : divisors) {
+            final FastDivisor.OfLong fastDivisor = FastDivisor.of(divisor);
+            final long[] dividends = LongStream.concat(
+                    LongStream.of(0, 1, -1, divisor - 1, divisor, divisor + 1, -divisor,
+                            -divisor - 1, -divisor + 1, Long.MIN_VALUE, Long.MIN_VALUE + 1,
+                            Long.MAX_VALUE, Long.MAX_VALUE - 1),
+                    RND.longs(1000))
+                    .toArray();
+            for (final long dividend : dividends) {
+                final String message = dividend + " / " + divisor;
+                assertEquals(dividend / divisor, fastDivisor.div(dividend), message);
+                assertEquals(dividend % divisor, fastDivisor.mod(dividend), message);
+                assertEquals(Math.floorMod(dividend, divisor), fastDivisor.floorMod(dividend),
+                        message);
+            }
+        }
+    }
+
+    private FastDivisorTest() {
+    }
+}
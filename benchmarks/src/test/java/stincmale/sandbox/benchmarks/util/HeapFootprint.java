@@ -0,0 +1,66 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Estimates how much heap memory objects retain.
+ * The estimates are only meaningful in a JVM that does not allocate concurrently,
+ * e.g., in a {@link org.openjdk.jmh.annotations.Setup} method of a benchmark.
+ */
+public final class HeapFootprint {
+    private static final int GC_ATTEMPTS = 3;
+
+    private HeapFootprint() {
+    }
+
+    /**
+     * Returns the number of bytes retained by an object created by the {@code factory},
+     * excluding objects that were already reachable before the {@code factory} was called.
+     *
+     * @param copies The number of objects to create and average the result over.
+     * The heap usage reported by the JVM is coarse-grained,
+     * so small objects must be measured in bulk.
+     */
+    public static final long retainedBytes(final Supplier<?> factory, final int copies) {
+        if (copies <= 0) {
+            throw new IllegalArgumentException("copies=" + copies);
+        }
+        final Object[] objects = new Object[copies];
+        final long usedBefore = usedHeapAfterGc();
+        for (int i = 0; i < copies; i++) {
+            objects[i] = factory.get();
+        }
+        final long usedAfter = usedHeapAfterGc();
+        Reference.reachabilityFence(objects);
+        return Math.max(usedAfter - usedBefore, 0) / copies;
+    }
+
+    /**
+     * Prints {@linkplain #retainedBytes(Supplier, int) retained bytes} per element of the object
+     * described by {@code description}.
+     */
+    public static final void print(
+            final String description, final long retainedBytes, final int numberOfElements) {
+        System.out.printf(Locale.ROOT,
+                "%n# non-JMH: footprint of %s: %d B, %.1f B per element%n",
+                description,
+                retainedBytes,
+                numberOfElements == 0 ? 0 : (double) retainedBytes / numberOfElements);
+    }
+
+    private static final long usedHeapAfterGc() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long result = Long.MAX_VALUE;
+        // a single System.gc() is not guaranteed to collect all garbage, so take the minimum
+        for (int i = 0; i < GC_ATTEMPTS; i++) {
+            System.gc();
+            result = Math.min(result, memory.getHeapMemoryUsage()
+                    .getUsed());
+        }
+        return result;
+    }
+}
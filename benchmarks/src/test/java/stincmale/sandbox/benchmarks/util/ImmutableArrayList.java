@@ -0,0 +1,100 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * An immutable {@link java.util.List} backed by an array of the exact length,
+ * which, unlike {@link java.util.List#copyOf(Collection)}, allows {@code null} elements.
+ * Unlike {@link java.util.Collections#unmodifiableList(java.util.List)}, it does not wrap
+ * another list, and its iterator does not check for concurrent modifications,
+ * as there can be none.
+ *
+ * @param <E> The type of elements.
+ */
+public final class ImmutableArrayList<E> extends AbstractList<E> implements RandomAccess {
+    private final Object[] elements;
+
+    private ImmutableArrayList(final Object[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Returns a list containing the elements of the {@code collection}
+     * in its iteration order.
+     */
+    public static final <E> ImmutableArrayList<E> copyOf(final Collection<? extends E> collection) {
+        // Collection.toArray must not retain references to the returned array
+        return new ImmutableArrayList<>(collection.toArray());
+    }
+
+    @Override
+    public E get(final int index) {
+        @SuppressWarnings("unchecked")
+        final E result = (E) elements[index];
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public boolean contains(@Nullable final Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public int indexOf(@Nullable final Object o) {
+        final Object[] elements = this.elements;
+        if (o == null) {
+            for (int i = 0; i < elements.length; i++) {
+                if (elements[i] == null) {
+                    return i;
+                }
+            }
+        } else {
+            for (int i = 0; i < elements.length; i++) {
+                if (o.equals(elements[i])) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int idx;
+
+            @Override
+            public boolean hasNext() {
+                return idx < elements.length;
+            }
+
+            @Override
+            public E next() {
+                if (idx >= elements.length) {
+                    throw new NoSuchElementException();
+                }
+                return get(idx++);
+            }
+        };
+    }
+
+    @Override
+    public void forEach(final Consumer<? super E> action) {
+        for (final Object element : elements) {
+            @SuppressWarnings("unchecked")
+            final E e = (E) element;
+            action.accept(e);
+        }
+    }
+}
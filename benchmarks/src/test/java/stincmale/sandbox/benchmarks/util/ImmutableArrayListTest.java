@@ -0,0 +1,105 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+final class ImmutableArrayListTest {
+    @Test
+    final void get() {
+        final ImmutableArrayList<String> list = ImmutableArrayList.copyOf(List.of("a", "b", "c"));
+        assertEquals(3, list.size());
+        assertEquals("a", list.get(0));
+        assertEquals("c", list.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(3));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> ImmutableArrayList.copyOf(List.of()).get(0));
+    }
+
+    @Test
+    final void nullElements() {
+        final ImmutableArrayList<String> list = ImmutableArrayList.copyOf(
+                Arrays.asList("a", null, "b", null));
+        assertNull(list.get(1));
+        assertTrue(list.contains(null));
+        assertEquals(1, list.indexOf(null));
+        assertEquals(3, list.lastIndexOf(null));
+        assertTrue(list.contains("b"));
+        assertFalse(list.contains("c"));
+        assertFalse(ImmutableArrayList.copyOf(List.of("a")).contains(null));
+    }
+
+    /**
+     * Verifies that the list is not affected by modifications of the copied collection.
+     */
+    @Test
+    final void copy() {
+        final List<String> original = new ArrayList<>(List.of("a", "b"));
+        final ImmutableArrayList<String> list = ImmutableArrayList.copyOf(original);
+        original.set(0, "c");
+        original.add("d");
+        assertEquals(List.of("a", "b"), list);
+    }
+
+    @Test
+    final void iterator() {
+        final ImmutableArrayList<String> list = ImmutableArrayList.copyOf(List.of("a", "b"));
+        final Iterator<String> iterator = list.iterator();
+        assertTrue(iterator.hasNext());
+        assertEquals("a", iterator.next());
+        assertEquals("b", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+        final List<String> forEachElements = new ArrayList<>();
+        list.forEach(forEachElements::add);
+        assertEquals(List.of("a", "b"), forEachElements);
+    }
+
+    @Test
+    final void equalsAndHashCode() {
+        final List<Integer> expected = List.of(1, 2, 3, 4, 5);
+        final ImmutableArrayList<Integer> list = ImmutableArrayList.copyOf(expected);
+        assertEquals(expected, list);
+        assertEquals(list, expected);
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertFalse(list.equals(List.of(1, 2, 3)));
+        final List<Integer> subList = list.subList(1, 4);
+        assertEquals(List.of(2, 3, 4), subList);
+        assertEquals(List.of(2, 3, 4).hashCode(), subList.hashCode());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.subList(2, 6));
+        final List<Object> nulls = Arrays.asList(null, null);
+        assertEquals(nulls, ImmutableArrayList.copyOf(nulls));
+    }
+
+    @Test
+    final void mutatorsThrow() {
+        final ImmutableArrayList<String> list = ImmutableArrayList.copyOf(List.of("a", "b"));
+        assertThrows(UnsupportedOperationException.class, () -> list.add("c"));
+        assertThrows(UnsupportedOperationException.class, () -> list.add(0, "c"));
+        assertThrows(UnsupportedOperationException.class, () -> list.set(0, "c"));
+        assertThrows(UnsupportedOperationException.class, () -> list.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> list.remove("a"));
+        assertThrows(UnsupportedOperationException.class, () -> list.addAll(List.of("c")));
+        assertThrows(UnsupportedOperationException.class, () -> list.removeIf(e -> true));
+        assertThrows(UnsupportedOperationException.class, () -> list.replaceAll(e -> e));
+        assertThrows(UnsupportedOperationException.class, list::clear);
+        assertThrows(UnsupportedOperationException.class, () -> list.subList(0, 1)
+                .set(0, "c"));
+        final Iterator<String> iterator = list.iterator();
+        iterator.next();
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+        assertEquals(List.of("a", "b"), list);
+    }
+
+    private ImmutableArrayListTest() {
+    }
+}
@@ -0,0 +1,215 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * A hash map with {@code int} keys and non-{@code null} values.
+ * Unlike {@link java.util.HashMap}, it does not box keys and does not allocate
+ * an entry per mapping: it uses open addressing with linear probing,
+ * and removes mappings via backward shift deletion instead of leaving tombstones.
+ * <p>
+ * This class is not thread-safe.</p>
+ *
+ * @param <V> The type of values.
+ */
+public final class IntObjectOpenHashMap<V> {
+    private static final int FREE_KEY = 0;
+    private static final int MIN_CAPACITY = 2;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final float loadFactor;
+    private int[] keys;
+    private Object[] values;
+    private int shift;
+    private int mask;
+    private int growThreshold;
+    /**
+     * The number of mappings excluding the mapping for {@link #FREE_KEY}.
+     */
+    private int size;
+    @Nullable
+    private V freeKeyValue;
+
+    /**
+     * Creates an empty map.
+     *
+     * @param expectedSize The number of mappings the map is expected to contain,
+     * the map does not grow until this number is exceeded.
+     * @param loadFactor The maximum ratio of the number of mappings
+     * to the number of slots in the table, must be in (0, 1).
+     */
+    public IntObjectOpenHashMap(final int expectedSize, final float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize=" + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor=" + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(OpenHashing.capacity(expectedSize, loadFactor, MIN_CAPACITY, MAX_CAPACITY));
+    }
+
+    public IntObjectOpenHashMap() {
+        this(0, 0.75f);
+    }
+
+    public int size() {
+        return freeKeyValue == null ? size : size + 1;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(final int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns the value mapped to the {@code key}.
+     *
+     * @return The value mapped to the {@code key}, or {@code null} if there is no such mapping.
+     */
+    @Nullable
+    public V get(final int key) {
+        if (key == FREE_KEY) {
+            return freeKeyValue;
+        }
+        final int[] keys = this.keys;
+        for (int idx = slot(key); ; idx = (idx + 1) & mask) {
+            final int k = keys[idx];
+            if (k == key) {
+                @SuppressWarnings("unchecked")
+                final V result = (V) values[idx];
+                return result;
+            } else if (k == FREE_KEY) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Maps the {@code key} to the {@code value}.
+     *
+     * @return The previous value mapped to the {@code key},
+     * or {@code null} if there was no such mapping.
+     */
+    @Nullable
+    public V put(final int key, final V value) {
+        Objects.requireNonNull(value, "value");
+        if (key == FREE_KEY) {
+            final V result = freeKeyValue;
+            freeKeyValue = value;
+            return result;
+        }
+        final int[] keys = this.keys;
+        for (int idx = slot(key); ; idx = (idx + 1) & mask) {
+            final int k = keys[idx];
+            if (k == key) {
+                @SuppressWarnings("unchecked")
+                final V result = (V) values[idx];
+                values[idx] = value;
+                return result;
+            } else if (k == FREE_KEY) {
+                keys[idx] = key;
+                values[idx] = value;
+                if (++size > growThreshold) {
+                    rehash(OpenHashing.grownCapacity(keys.length, MAX_CAPACITY));
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for the {@code key}.
+     *
+     * @return The value that was mapped to the {@code key},
+     * or {@code null} if there was no such mapping.
+     */
+    @Nullable
+    public V remove(final int key) {
+        if (key == FREE_KEY) {
+            final V result = freeKeyValue;
+            freeKeyValue = null;
+            return result;
+        }
+        final int[] keys = this.keys;
+        for (int idx = slot(key); ; idx = (idx + 1) & mask) {
+            final int k = keys[idx];
+            if (k == key) {
+                @SuppressWarnings("unchecked")
+                final V result = (V) values[idx];
+                shiftBack(idx);
+                size--;
+                return result;
+            } else if (k == FREE_KEY) {
+                return null;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        Arrays.fill(values, null);
+        size = 0;
+        freeKeyValue = null;
+    }
+
+    /**
+     * Frees the slot {@code removedIdx} by moving entries that follow it in the same cluster
+     * and may be moved closer to their home slots without breaking probing sequences.
+     */
+    private void shiftBack(final int removedIdx) {
+        final int[] keys = this.keys;
+        final Object[] values = this.values;
+        int gap = removedIdx;
+        for (int idx = (gap + 1) & mask; ; idx = (idx + 1) & mask) {
+            final int k = keys[idx];
+            if (k == FREE_KEY) {
+                break;
+            }
+            // the entry may be moved to the gap iff the gap is between its home slot and idx
+            if (((idx - slot(k)) & mask) >= ((idx - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[idx];
+                gap = idx;
+            }
+        }
+        keys[gap] = FREE_KEY;
+        values[gap] = null;
+    }
+
+    private int slot(final int key) {
+        return OpenHashing.slot(key, shift);
+    }
+
+    private void allocate(final int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+        mask = capacity - 1;
+        growThreshold = OpenHashing.growThreshold(capacity, loadFactor);
+    }
+
+    private void rehash(final int newCapacity) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(newCapacity);
+        final int[] keys = this.keys;
+        final Object[] values = this.values;
+        for (int oldIdx = 0; oldIdx < oldKeys.length; oldIdx++) {
+            final int k = oldKeys[oldIdx];
+            if (k != FREE_KEY) {
+                int idx = slot(k);
+                while (keys[idx] != FREE_KEY) {
+                    idx = (idx + 1) & mask;
+                }
+                keys[idx] = k;
+                values[idx] = oldValues[oldIdx];
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+final class IntObjectOpenHashMapTest {
+    @Test
+    final void freeKey() {
+        final IntObjectOpenHashMap<String> map = new IntObjectOpenHashMap<>();
+        assertNull(map.get(0));
+        assertNull(map.put(0, "a"));
+        assertTrue(map.containsKey(0));
+        assertEquals(1, map.size());
+        assertEquals("a", map.put(0, "b"));
+        assertEquals("b", map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    final void nullValue() {
+        assertThrows(NullPointerException.class, () -> new IntObjectOpenHashMap<>().put(1, null));
+    }
+
+    @Test
+    final void illegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new IntObjectOpenHashMap<>(-1, 0.5f));
+        assertThrows(IllegalArgumentException.class, () -> new IntObjectOpenHashMap<>(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new IntObjectOpenHashMap<>(1, 1));
+    }
+
+    /**
+     * Keys that are multiples of a big power of two collide in a small table,
+     * which forms long clusters that must survive removals.
+     */
+    @Test
+    final void collidingKeys() {
+        final IntObjectOpenHashMap<Integer> map = new IntObjectOpenHashMap<>(0, 0.9f);
+        final Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 1; i <= 1000; i++) {
+            final int key = i << 20;
+            assertEquals(expected.put(key, i), map.put(key, i));
+        }
+        for (int i = 1; i <= 1000; i += 3) {
+            final int key = i << 20;
+            assertEquals(expected.remove(key), map.remove(key));
+        }
+        assertEquals(expected, toMap(map, 1001 << 20, 1 << 20));
+    }
+
+    @Test
+    final void randomOperations() {
+        final Random rnd = new Random(1L);
+        for (final float loadFactor : new float[] {0.25f, 0.5f, 0.75f, 0.99f}) {
+            final IntObjectOpenHashMap<Integer> map = new IntObjectOpenHashMap<>(0, loadFactor);
+            final Map<Integer, Integer> expected = new HashMap<>();
+            final int keyBound = 2000;
+            for (int i = 0; i < 100_000; i++) {
+                final int key = rnd.nextInt(keyBound);
+                final Integer value = rnd.nextInt();
+                switch (rnd.nextInt(3)) {
+                    case 0 -> assertSame(expected.put(key, value), map.put(key, value));
+                    case 1 -> assertSame(expected.remove(key), map.remove(key));
+                    default -> assertSame(expected.get(key), map.get(key));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertEquals(expected, toMap(map, keyBound, 1));
+            map.clear();
+            assertTrue(map.isEmpty());
+            assertNull(map.get(rnd.nextInt(keyBound)));
+        }
+    }
+
+    private static final <V> Map<Integer, V> toMap(
+            final IntObjectOpenHashMap<V> map, final int keyBound, final int keyStep) {
+        final Map<Integer, V> result = new HashMap<>();
+        for (int key = 0; key < keyBound; key += keyStep) {
+            final V value = map.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    private IntObjectOpenHashMapTest() {
+    }
+}
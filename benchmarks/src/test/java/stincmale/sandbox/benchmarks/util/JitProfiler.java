@@ -0,0 +1,288 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+import org.openjdk.jmh.results.TextResult;
+
+/**
+ * Reports how the JIT compiled a benchmark by parsing the {@code -XX:+LogCompilation} log
+ * of the forked JVM, which is written when the JVM exits.
+ * The report is about two methods: the benchmark method, and the JMH-generated stub method
+ * that calls it in a loop, into which the benchmark method is normally inlined.
+ * <ul>
+ *     <li>{@code jit.stub.level}, {@code jit.benchmark.level} - the highest compilation tier
+ *     reached: 0 is the interpreter, 1-3 is C1, 4 is C2.</li>
+ *     <li>{@code jit.stub.size} - the size in bytes of the last compiled code of the stub
+ *     at the highest tier.</li>
+ *     <li>{@code jit.benchmark.inlined} - 1 if the benchmark method is inlined into
+ *     the last compilation of the stub at the highest tier, 0 otherwise.</li>
+ *     <li>{@code jit.inline.failures} - the number of call sites that were not inlined
+ *     into the last compilation of the stub at the highest tier.</li>
+ *     <li>{@code jit.deopts} - the number of times compiled code of the stub or of the benchmark
+ *     method was deoptimized.</li>
+ *     <li>{@code jit} - a textual report with inlining failures and deoptimizations,
+ *     including their reasons.</li>
+ * </ul>
+ * <p>
+ * This profiler is added to all benchmarks if the {@code sandbox.benchmark.jitReport}
+ * system property is {@code true}, see {@link JmhOptions}.</p>
+ */
+public final class JitProfiler implements ExternalProfiler {
+    private static final Pattern COMPILE_ID = Pattern.compile(" compile_id='(\\d+)'");
+    private static final Pattern LEVEL = Pattern.compile(" level='(\\d+)'");
+    private static final Pattern SIZE = Pattern.compile(" size='(\\d+)'");
+    private static final Pattern METHOD = Pattern.compile(" method='([^']*)'");
+    private static final Pattern REASON = Pattern.compile(" reason='([^']*)'");
+    private static final Pattern ID = Pattern.compile(" id='(\\d+)'");
+    private static final Pattern NAME = Pattern.compile(" name='([^']*)'");
+    private static final Pattern HOLDER = Pattern.compile(" holder='(\\d+)'");
+    private static final String LABEL_PREFIX = "jit.";
+
+    @Nullable
+    private Path log;
+
+    public JitProfiler() {
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(final BenchmarkParams params) {
+        return List.of();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(final BenchmarkParams params) {
+        try {
+            log = Files.createTempFile("sandbox-jit-", ".log");
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return List.of(
+                "-XX:+UnlockDiagnosticVMOptions", "-XX:+LogCompilation", "-XX:LogFile=" + log);
+    }
+
+    @Override
+    public void beforeTrial(final BenchmarkParams params) {
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterTrial(
+            final BenchmarkResult br, final long pid, final File stdOut, final File stdErr) {
+        if (log == null) {
+            return List.of();
+        }
+        final Report report = new Report(br.getParams()
+                .getBenchmark());
+        try {
+            report.parse(log);
+            Files.delete(log);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            log = null;
+        }
+        return List.of(
+                new ScalarResult(LABEL_PREFIX + "stub.level", report.stubLevel,
+                        "tier", AggregationPolicy.MIN),
+                new ScalarResult(LABEL_PREFIX + "benchmark.level", report.benchmarkLevel,
+                        "tier", AggregationPolicy.MIN),
+                new ScalarResult(LABEL_PREFIX + "stub.size", report.stubSize,
+                        "B", AggregationPolicy.MAX),
+                new ScalarResult(LABEL_PREFIX + "benchmark.inlined",
+                        report.benchmarkInlined ? 1 : 0, "bool", AggregationPolicy.MIN),
+                new ScalarResult(LABEL_PREFIX + "inline.failures", report.inlineFailures.size(),
+                        "#", AggregationPolicy.MAX),
+                new ScalarResult(LABEL_PREFIX + "deopts", report.deopts.size(),
+                        "#", AggregationPolicy.MAX),
+                new TextResult(report.describe(), "jit"));
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "JIT compilation, inlining and deoptimization report based on -XX:+LogCompilation";
+    }
+
+    @Nullable
+    private static final String group(final Pattern pattern, final String line) {
+        final Matcher matcher = pattern.matcher(line);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static final int intGroup(final Pattern pattern, final String line, final int absent) {
+        @Nullable
+        final String group = group(pattern, line);
+        return group == null ? absent : Integer.parseInt(group);
+    }
+
+    /**
+     * Replaces XML entities that may appear in method names, e.g., {@code &lt;init&gt;}.
+     */
+    private static final String unescape(final String s) {
+        return s.replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&apos;", "'")
+                .replace("&quot;", "\"")
+                .replace("&amp;", "&");
+    }
+
+    private static final class Report {
+        /**
+         * The prefix of the {@code method} attribute of the benchmark method,
+         * e.g., {@code "pkg.SomeBench someBenchmark ("}.
+         */
+        private final String benchmarkMethodPrefix;
+        /**
+         * The prefix of the {@code method} attribute of the JMH-generated stub method,
+         * e.g., {@code "pkg.jmh_generated.SomeBench_someBenchmark_jmhTest someBenchmark_"}.
+         */
+        private final String stubMethodPrefix;
+        private final String benchmarkClass;
+        private final String benchmarkMethod;
+        private int stubLevel;
+        private int benchmarkLevel;
+        private int stubSize;
+        private int stubCompileId = -1;
+        private final List<Integer> compileIds;
+        private boolean benchmarkInlined;
+        private final List<String> inlineFailures;
+        private final List<String> deopts;
+
+        private Report(final String benchmark) {
+            final int methodIdx = benchmark.lastIndexOf('.');
+            benchmarkClass = benchmark.substring(0, methodIdx);
+            benchmarkMethod = benchmark.substring(methodIdx + 1);
+            final int classIdx = benchmarkClass.lastIndexOf('.');
+            benchmarkMethodPrefix = benchmarkClass + " " + benchmarkMethod + " (";
+            stubMethodPrefix = benchmarkClass.substring(0, classIdx) + ".jmh_generated."
+                    + benchmarkClass.substring(classIdx + 1) + "_" + benchmarkMethod + "_jmhTest "
+                    + benchmarkMethod + "_";
+            compileIds = new ArrayList<>();
+            inlineFailures = new ArrayList<>();
+            deopts = new ArrayList<>();
+        }
+
+        /**
+         * Parses the log in two passes: the first pass finds compilations of the stub and
+         * of the benchmark method, the second pass analyzes them.
+         */
+        private void parse(final Path log) throws IOException {
+            try (BufferedReader reader = Files.newBufferedReader(log)) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.startsWith("<nmethod ")) {
+                        parseNmethod(line);
+                    }
+                }
+            }
+            try (BufferedReader reader = Files.newBufferedReader(log)) {
+                boolean inStubTask = false;
+                final Map<String, String> klasses = new HashMap<>();
+                final Map<String, String> methods = new HashMap<>();
+                @Nullable
+                String callee = null;
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.startsWith("<uncommon_trap thread=")
+                            || line.startsWith("<deoptimized thread=")) {
+                        if (compileIds.contains(intGroup(COMPILE_ID, line, -1))) {
+                            deopts.add(String.format(Locale.ROOT, "compile_id %s, level %s: %s",
+                                    group(COMPILE_ID, line), group(LEVEL, line),
+                                    group(REASON, line)));
+                        }
+                    } else if (line.startsWith("<task ")) {
+                        inStubTask = intGroup(COMPILE_ID, line, -1) == stubCompileId;
+                        klasses.clear();
+                        methods.clear();
+                        callee = null;
+                    } else if (inStubTask) {
+                        if (line.startsWith("</task>")) {
+                            inStubTask = false;
+                        } else if (line.startsWith("<klass ")) {
+                            klasses.put(group(ID, line), group(NAME, line));
+                        } else if (line.startsWith("<method ")) {
+                            methods.put(group(ID, line), klasses.get(group(HOLDER, line))
+                                    + "::" + unescape(group(NAME, line)));
+                        } else if (line.startsWith("<call ")) {
+                            callee = methods.get(group(METHOD, line));
+                        } else if (line.startsWith("<inline_success")) {
+                            if ((benchmarkClass + "::" + benchmarkMethod).equals(callee)) {
+                                benchmarkInlined = true;
+                            }
+                        } else if (line.startsWith("<inline_fail")) {
+                            inlineFailures.add(callee + ": " + unescape(group(REASON, line)));
+                        }
+                    }
+                }
+            }
+        }
+
+        private void parseNmethod(final String line) {
+            @Nullable
+            final String method = group(METHOD, line);
+            if (method == null) {
+                return;
+            }
+            final int level = intGroup(LEVEL, line, 0);
+            final int compileId = intGroup(COMPILE_ID, line, -1);
+            if (method.startsWith(stubMethodPrefix) && method.contains("_jmhStub ")) {
+                compileIds.add(compileId);
+                if (level >= stubLevel) {
+                    stubLevel = level;
+                    stubSize = intGroup(SIZE, line, 0);
+                    stubCompileId = compileId;
+                }
+            } else if (method.startsWith(benchmarkMethodPrefix)) {
+                compileIds.add(compileId);
+                benchmarkLevel = Math.max(benchmarkLevel, level);
+            }
+        }
+
+        private String describe() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT,
+                    "stub level %d, size %d B, benchmark method level %d, %s%n",
+                    stubLevel, stubSize, benchmarkLevel,
+                    benchmarkInlined ? "inlined into the stub" : "NOT inlined into the stub"));
+            sb.append(String.format(Locale.ROOT, "inlining failures: %d%n", inlineFailures.size()));
+            count(inlineFailures).forEach((failure, count) -> sb.append(
+                    String.format(Locale.ROOT, "  %dx %s%n", count, failure)));
+            sb.append(String.format(Locale.ROOT, "deoptimizations: %d%n", deopts.size()));
+            count(deopts).forEach((deopt, count) -> sb.append(
+                    String.format(Locale.ROOT, "  %dx %s%n", count, deopt)));
+            return sb.toString();
+        }
+
+        private static Map<String, Integer> count(final List<String> items) {
+            final Map<String, Integer> result = new TreeMap<>();
+            items.forEach(item -> result.merge(item, 1, Integer::sum));
+            return result;
+        }
+    }
+}
@@ -1,16 +1,69 @@
 package stincmale.sandbox.benchmarks.util;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import static java.lang.Boolean.parseBoolean;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
 
 public final class JmhOptions {
     private static final boolean DRY_RUN =
             parseBoolean(System.getProperty("sandbox.benchmark.dryRun", "false"));
+    /**
+     * If {@code true}, {@link JitProfiler} is added to all benchmarks.
+     */
+    private static final boolean JIT_REPORT =
+            parseBoolean(System.getProperty("sandbox.benchmark.jitReport", "false"));
+    /**
+     * If not {@code null}, benchmarks are run in the soak mode for this duration
+     * with {@link SoakProfiler}, which takes a sample every {@link #SOAK_SAMPLE_INTERVAL}.
+     * The duration is specified in the ISO-8601 format, e.g., {@code PT2H}.
+     */
+    @Nullable
+    private static final Duration SOAK =
+            parseDuration(System.getProperty("sandbox.benchmark.soak"));
+    private static final Duration SOAK_SAMPLE_INTERVAL = parseDuration(
+            System.getProperty("sandbox.benchmark.soakSampleInterval", "PT5S"));
+    private static final int SOAK_WARMUP_ITERATIONS = 3;
+    /**
+     * If not {@code null}, only the benchmarks whose names contain a match of this regular
+     * expression, e.g., {@code iterateLinkedList}, are run in the soak mode,
+     * because a soak run of each benchmark with each combination of parameters
+     * is rarely affordable.
+     */
+    @Nullable
+    private static final String SOAK_INCLUDE =
+            emptyToNull(System.getProperty("sandbox.benchmark.soakInclude"));
+    /**
+     * Parameters with which benchmarks are run in the soak mode, e.g.,
+     * {@code size=50000,nodeLayout=SHUFFLED}. Parameters that are not specified
+     * have all the values specified by benchmarks.
+     */
+    private static final Map<String, String> SOAK_PARAMS =
+            parseParams(System.getProperty("sandbox.benchmark.soakParams", ""));
+    /**
+     * If not {@code null}, {@link JmhRunner} runs benchmarks with {@link AdaptiveRunner},
+     * which spends no more than this duration on measuring a benchmark with specific parameters.
+     * The duration is specified in the ISO-8601 format, e.g., {@code PT1M}.
+     */
+    @Nullable
+    private static final Duration ADAPTIVE =
+            parseDuration(System.getProperty("sandbox.benchmark.adaptive"));
+    private static final List<Path> JDK_HOMES = Stream.of(
+            System.getProperty("sandbox.benchmark.jdks", "").split(File.pathSeparator))
+            .filter(jdkHome -> !jdkHome.isBlank())
+            .map(jdkHome -> Path.of(jdkHome.strip()))
+            .toList();
     private static final boolean JVM_SERVER = !DRY_RUN;
     private static final boolean JVM_ENABLE_ASSERTIONS = DRY_RUN;
 
@@ -19,30 +72,83 @@ public final class JmhOptions {
 
     public static final OptionsBuilder newOptionsBuilder(
             @Nullable final Consumer<OptionsBuilder> forksWarmupIterationsTuner) {
-        final OptionsBuilder result = new OptionsBuilder();
-        result.jvmArgs(
-                "-Xverify:all",
+        final String[] jvmArgs = {"-Xverify:all",
                 "-Xms4096m",
                 "-Xmx4096m",
                 JVM_SERVER ? "-server" : "-client",
-                JVM_ENABLE_ASSERTIONS ? "-enableassertions" : "-disableassertions")
+                JVM_ENABLE_ASSERTIONS ? "-enableassertions" : "-disableassertions"};
+        final OptionsBuilder result = new OptionsBuilder();
+        result.jvmArgs(jvmArgs)
                 .shouldDoGC(false)
                 .syncIterations(true)
                 .shouldFailOnError(true)
                 .threads(1)
-                .timeout(milliseconds(1000_000));
+                .timeout(milliseconds(1000_000))
+                .addProfiler(BenchmarkEnvironmentProfiler.class);
         if (DRY_RUN) {
             result.forks(1)
                     .warmupTime(milliseconds(50))
                     .warmupIterations(1)
                     .measurementTime(milliseconds(50))
                     .measurementIterations(1);
+        } else if (SOAK != null) {
+            result.forks(1)
+                    .warmupTime(milliseconds(SOAK_SAMPLE_INTERVAL.toMillis()))
+                    .warmupIterations(SOAK_WARMUP_ITERATIONS)
+                    .measurementTime(milliseconds(SOAK_SAMPLE_INTERVAL.toMillis()))
+                    .measurementIterations(
+                            (int) Math.max(1, SOAK.toMillis() / SOAK_SAMPLE_INTERVAL.toMillis()))
+                    .addProfiler(SoakProfiler.class);
+            if (SOAK_INCLUDE != null) {
+                // includes specified by benchmarks are added to this one instead of replacing it,
+                // so the benchmarks that do not match are excluded instead
+                result.exclude("^(?!.*(?:" + SOAK_INCLUDE + "))");
+            }
+            SOAK_PARAMS.forEach(result::param);
         } else if (forksWarmupIterationsTuner != null) {
             forksWarmupIterationsTuner.accept(result);
         }
+        if (JIT_REPORT) {
+            result.addProfiler(JitProfiler.class);
+        }
         return result;
     }
 
+    /**
+     * Returns the home directories of the JDKs specified via the {@code sandbox.benchmark.jdks}
+     * system property as a list separated with {@link File#pathSeparator}, e.g.,
+     * {@code /opt/jdk-21:/opt/jdk-22}. The JDKs must be able to run the benchmarks' class files.
+     *
+     * @return An empty list if no JDKs are specified.
+     * @see JmhRunner
+     */
+    public static final List<Path> jdkHomes() {
+        return JDK_HOMES;
+    }
+
+    /**
+     * Returns the time budget of the adaptive mode specified via
+     * the {@code sandbox.benchmark.adaptive} system property.
+     *
+     * @return {@code null} if the adaptive mode is off, which it always is in a dry run.
+     * @see AdaptiveRunner
+     */
+    @Nullable
+    static final Duration adaptiveBudget() {
+        return DRY_RUN ? null : ADAPTIVE;
+    }
+
+    /**
+     * Makes JMH launch forked JVMs restricted to CPUs placed according to {@code topology},
+     * see {@link CpuAffinityProfiler}. Use {@link CpuTopology#of(RunResult)} to find out
+     * which topology a result was produced with.
+     */
+    public static final ChainedOptionsBuilder pinCpus(
+            final ChainedOptionsBuilder options, final CpuTopology topology) {
+        return options.addProfiler(CpuAffinityProfiler.class, topology.name())
+                .jvmArgsPrepend(topology.jvmArg());
+    }
+
     public static final String includeBenchmarks(final Class<?> klass) {
         return klass.getName() + ".*";
     }
@@ -73,4 +179,34 @@ public final class JmhOptions {
                 .flatMap(Arrays::stream)
                 .toArray(String[]::new);
     }
+
+    @Nullable
+    private static final Duration parseDuration(@Nullable final String duration) {
+        return duration == null || duration.isEmpty() ? null : Duration.parse(duration);
+    }
+
+    @Nullable
+    private static final String emptyToNull(@Nullable final String s) {
+        return s == null || s.isEmpty() ? null : s;
+    }
+
+    /**
+     * Parses parameters specified as {@code name1=value1,name2=value2}.
+     */
+    private static final Map<String, String> parseParams(final String params) {
+        final Map<String, String> result = new LinkedHashMap<>();
+        for (final String param : params.split(",")) {
+            if (param.isBlank()) {
+                continue;
+            }
+            final int separatorIdx = param.indexOf('=');
+            if (separatorIdx <= 0) {
+                throw new IllegalArgumentException("Illegal parameter " + param);
+            }
+            result.put(param.substring(0, separatorIdx)
+                    .strip(), param.substring(separatorIdx + 1)
+                    .strip());
+        }
+        return result;
+    }
 }
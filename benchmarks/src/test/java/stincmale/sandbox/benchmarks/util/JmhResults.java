@@ -0,0 +1,166 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.results.RunResult;
+
+public final class JmhResults {
+    private JmhResults() {
+    }
+
+    /**
+     * Returns the simple name of the benchmark method, e.g., {@code "iterate"}
+     * for {@code "stincmale.sandbox.benchmarks.ListPerformanceBench.iterate"}.
+     */
+    public static final String benchmarkMethodName(final RunResult result) {
+        final String benchmark = result.getParams().getBenchmark();
+        return benchmark.substring(benchmark.lastIndexOf('.') + 1);
+    }
+
+    public static final double score(final RunResult result) {
+        return result.getPrimaryResult().getScore();
+    }
+
+    /**
+     * Returns the score of the secondary result, e.g., produced by a profiler,
+     * whose label ends with {@code labelSuffix}, e.g., {@code "gc.alloc.rate.norm"},
+     * or {@link Double#NaN} if there is no such result.
+     * Labels are matched by suffix because profilers may prefix them.
+     */
+    public static final double secondaryScore(final RunResult result, final String labelSuffix) {
+        for (final String label : result.getSecondaryResults()
+                .keySet()) {
+            if (label.endsWith(labelSuffix)) {
+                return result.getSecondaryResults()
+                        .get(label)
+                        .getScore();
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Returns {@code value} of {@code result} formatted with {@code format}, e.g., {@code "%.3f"},
+     * or {@code "-"} if there is no {@code result} because not all benchmarks were run.
+     */
+    public static final String format(
+            @Nullable final RunResult result,
+            final String format,
+            final ToDoubleFunction<RunResult> value) {
+        return result == null
+                ? "-"
+                : String.format(Locale.ROOT, format, value.applyAsDouble(result));
+    }
+
+    /**
+     * Indexes {@code results} by the specified key.
+     *
+     * @param key Must produce distinct values for distinct {@code results}.
+     */
+    public static final Map<String, RunResult> index(
+            final Collection<RunResult> results, final Function<RunResult, String> key) {
+        return results.stream()
+                .collect(Collectors.toMap(key, Function.identity()));
+    }
+
+    /**
+     * Groups {@code results} by {@linkplain org.openjdk.jmh.infra.BenchmarkParams#getJvm() JVM}
+     * in the order in which the JVMs first appear.
+     * {@link JmhRunner} may produce results for the same benchmark with the same parameters
+     * in multiple JVMs, so such results must be {@linkplain #index(Collection, Function) indexed}
+     * separately for each JVM.
+     */
+    public static final Map<String, List<RunResult>> byJvm(final Collection<RunResult> results) {
+        return results.stream()
+                .collect(Collectors.groupingBy(result -> result.getParams()
+                        .getJvm(), LinkedHashMap::new, Collectors.toList()));
+    }
+
+    /**
+     * Calls {@code action} with each JVM and its results, see {@link #byJvm(Collection)}.
+     * If there are results of more than one JVM, prints which JVM the results are of
+     * before each call.
+     */
+    public static final void forEachJvm(
+            final Collection<RunResult> results, final BiConsumer<String, List<RunResult>> action) {
+        final Map<String, List<RunResult>> resultsByJvm = byJvm(results);
+        resultsByJvm.forEach((jvm, jvmResults) -> {
+            if (resultsByJvm.size() > 1) {
+                System.out.printf(Locale.ROOT, "%n# non-JMH: the results of %s, JDK %s%n",
+                        jvm, jvmResults.get(0)
+                                .getParams()
+                                .getJdkVersion());
+            }
+            action.accept(jvm, jvmResults);
+        });
+    }
+
+    /**
+     * Returns a key consisting of the {@linkplain #benchmarkMethodName(RunResult) benchmark method}
+     * and the values of the specified parameters, which is useful with
+     * {@link #index(Collection, Function)}.
+     */
+    public static final String key(final RunResult result, final String... paramNames) {
+        final StringBuilder sb = new StringBuilder(benchmarkMethodName(result));
+        for (final String paramName : paramNames) {
+            sb.append(' ')
+                    .append(result.getParams().getParam(paramName));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the same as {@link #key(RunResult, String...)},
+     * but for the specified values instead of a {@link RunResult}.
+     */
+    public static final String key(final String benchmarkMethodName, final Object... paramValues) {
+        final StringBuilder sb = new StringBuilder(benchmarkMethodName);
+        for (final Object paramValue : paramValues) {
+            sb.append(' ')
+                    .append(String.format(Locale.ROOT, "%s", paramValue));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the values of the {@link Param} annotation of the field {@code paramName}
+     * declared by {@code stateClass}, which is useful for reporting results for each value.
+     */
+    public static final String[] paramValues(final Class<?> stateClass, final String paramName) {
+        try {
+            return stateClass.getDeclaredField(paramName)
+                    .getAnnotation(Param.class)
+                    .value();
+        } catch (final NoSuchFieldException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns {@link #paramValues(Class, String)} parsed as {@code int}s.
+     */
+    public static final int[] intParamValues(final Class<?> stateClass, final String paramName) {
+        return Arrays.stream(paramValues(stateClass, paramName))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    /**
+     * Returns {@link #paramValues(Class, String)} parsed as {@code long}s.
+     */
+    public static final long[] longParamValues(final Class<?> stateClass, final String paramName) {
+        return Arrays.stream(paramValues(stateClass, paramName))
+                .mapToLong(Long::parseLong)
+                .toArray();
+    }
+}
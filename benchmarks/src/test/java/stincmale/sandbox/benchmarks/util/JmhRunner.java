@@ -0,0 +1,167 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import static stincmale.sandbox.benchmarks.util.JmhResults.key;
+
+/**
+ * Runs benchmarks in each JDK specified by {@link JmhOptions#jdkHomes()},
+ * or, if none are specified, in the JDK specified by {@link Options#getJvm()},
+ * which by default is the JDK running the {@link Runner}.
+ * Benchmarks are run by {@link AdaptiveRunner} if the adaptive mode is on,
+ * see {@link JmhOptions#adaptiveBudget()}.
+ */
+public final class JmhRunner {
+    private JmhRunner() {
+    }
+
+    /**
+     * Runs benchmarks in each JDK specified by {@link JmhOptions#jdkHomes()},
+     * and prints a comparison of the results,
+     * in which the results produced by the first JDK are the baseline.
+     * A result is flagged if it differs from the baseline by more than the sum of
+     * the {@linkplain Result#getScoreError() errors} of both results.
+     *
+     * @return The results produced by all JDKs. Note that there may be multiple results
+     * for the same benchmark with the same parameters, which may be distinguished by
+     * {@linkplain org.openjdk.jmh.infra.BenchmarkParams#getJvm() JVM}.
+     */
+    public static final Collection<RunResult> run(final Options options) throws RunnerException {
+        final List<Path> jdkHomes = JmhOptions.jdkHomes();
+        if (jdkHomes.isEmpty()) {
+            return runInJdk(options);
+        }
+        final List<Collection<RunResult>> jdkResults = new ArrayList<>();
+        for (final Path jdkHome : jdkHomes) {
+            jdkResults.add(runInJdk(new OptionsBuilder()
+                    .parent(options)
+                    .jvm(java(jdkHome).toString())
+                    .build()));
+        }
+        printComparison(jdkHomes, jdkResults);
+        final List<RunResult> result = new ArrayList<>();
+        jdkResults.forEach(result::addAll);
+        return result;
+    }
+
+    /**
+     * Runs benchmarks with {@link AdaptiveRunner} if {@linkplain JmhOptions#adaptiveBudget()
+     * the adaptive mode} is on, otherwise with {@link Runner}.
+     */
+    private static final Collection<RunResult> runInJdk(final Options options)
+            throws RunnerException {
+        @Nullable
+        final Duration adaptiveBudget = JmhOptions.adaptiveBudget();
+        return adaptiveBudget == null
+                ? new Runner(options).run()
+                : AdaptiveRunner.run(options, adaptiveBudget);
+    }
+
+    private static final Path java(final Path jdkHome) {
+        final Path result = jdkHome.resolve("bin")
+                .resolve(File.separatorChar == '\\' ? "java.exe" : "java");
+        if (!Files.isExecutable(result)) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT,
+                    "%s is not a JDK home directory, %s is not an executable file",
+                    jdkHome, result));
+        }
+        return result;
+    }
+
+    /**
+     * Prints a comparison of {@code jdkResults}.
+     *
+     * @param jdkResults The results produced by each of {@code jdkHomes} respectively.
+     */
+    private static final void printComparison(
+            final List<Path> jdkHomes, final List<Collection<RunResult>> jdkResults) {
+        final List<String> jdkLabels = new ArrayList<>();
+        final List<Map<String, RunResult>> indices = new ArrayList<>();
+        for (int i = 0; i < jdkHomes.size(); i++) {
+            final Path jdkHome = jdkHomes.get(i);
+            final Collection<RunResult> results = jdkResults.get(i);
+            jdkLabels.add(results.stream()
+                    .findAny()
+                    .map(result -> result.getParams()
+                            .getJdkVersion())
+                    .orElse(jdkHome.toString()));
+            indices.add(JmhResults.index(results, JmhRunner::describe));
+        }
+        System.out.printf(Locale.ROOT,
+                "%n# non-JMH: comparison of JDKs, the baseline is %s%n", jdkLabels.get(0));
+        System.out.printf(Locale.ROOT, "%-60s", "benchmark");
+        jdkLabels.forEach(jdkLabel -> System.out.printf(Locale.ROOT, " %40s", jdkLabel));
+        System.out.println();
+        for (final RunResult baseline : jdkResults.get(0)) {
+            final String benchmark = describe(baseline);
+            System.out.printf(Locale.ROOT, "%-60s %40s", benchmark, format(baseline, null));
+            for (int i = 1; i < indices.size(); i++) {
+                System.out.printf(Locale.ROOT, " %40s", format(indices.get(i)
+                        .get(benchmark), baseline));
+            }
+            System.out.println();
+        }
+        System.out.printf(Locale.ROOT, "! - the difference from the baseline is greater than "
+                + "the sum of the score errors%n"
+                + "? - the score error is unknown, e.g., because there are too few iterations%n");
+    }
+
+    /**
+     * Returns the score, its error, and its difference from the {@code baseline}, if any,
+     * flagged according to {@link #run(Options)}.
+     */
+    private static final String format(
+            @Nullable final RunResult result, @Nullable final RunResult baseline) {
+        if (result == null) {
+            // the benchmark failed or was not run
+            return "-";
+        }
+        final double score = result.getPrimaryResult()
+                .getScore();
+        final double error = result.getPrimaryResult()
+                .getScoreError();
+        final String formattedScore = String.format(Locale.ROOT, "%.3f +- %.3f %s",
+                score, error, result.getPrimaryResult()
+                        .getScoreUnit());
+        if (baseline == null) {
+            return formattedScore;
+        }
+        final double baselineScore = baseline.getPrimaryResult()
+                .getScore();
+        final double baselineError = baseline.getPrimaryResult()
+                .getScoreError();
+        final String flag;
+        if (Double.isNaN(error) || Double.isNaN(baselineError)) {
+            flag = "?";
+        } else if (Math.abs(score - baselineScore) > error + baselineError) {
+            flag = "!";
+        } else {
+            flag = " ";
+        }
+        return String.format(Locale.ROOT, "%s %+7.1f%%%s",
+                formattedScore, (score - baselineScore) / baselineScore * 100, flag);
+    }
+
+    /**
+     * Returns the benchmark method name followed by the values of all its parameters, if any.
+     */
+    static final String describe(final RunResult result) {
+        return key(result, result.getParams()
+                .getParamsKeys()
+                .toArray(new String[0]));
+    }
+}
@@ -0,0 +1,290 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed-memory histogram of latencies, e.g., in nanoseconds,
+ * with log-linear buckets in the style of
+ * <a href="https://github.com/HdrHistogram/HdrHistogram">HdrHistogram</a>.
+ * Values smaller than 2<sup>{@code precisionBits}</sup> have their own buckets,
+ * larger values are grouped into buckets whose width is at most
+ * 2<sup>1-{@code precisionBits}</sup> of the values they contain,
+ * which bounds the relative error of reported values.
+ * <p>
+ * {@link #record(long)} does not allocate and does not block:
+ * each bucket is an atomic counter, and counters are striped by thread,
+ * so that concurrent writers do not falsely share cache lines.
+ * Threads are assigned to stripes round-robin in the order in which they record
+ * their first value into any {@link LatencyHistogram}, thus threads that start recording
+ * one after another write to different stripes as long as there are no more of them
+ * than stripes, otherwise some threads share stripes and contend.
+ * {@link #snapshot()} sums up the stripes without stopping writers,
+ * hence a {@link Snapshot} may miss values recorded concurrently with taking it,
+ * but these values are accounted for in the next snapshot.</p>
+ * <p>
+ * This class is thread-safe.</p>
+ */
+public final class LatencyHistogram {
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+    /**
+     * The number of {@code long}s in 128 bytes, which separate stripes,
+     * so that adjacent cache lines prefetched together do not belong to different stripes.
+     */
+    private static final int STRIPE_PADDING = 16;
+    private static final int MAX_STRIPES = 64;
+    private static final AtomicInteger NEXT_THREAD_INDEX = new AtomicInteger();
+    /**
+     * The index of the current thread in the order in which threads record their first value.
+     */
+    private static final ThreadLocal<Integer> THREAD_INDEX =
+            ThreadLocal.withInitial(NEXT_THREAD_INDEX::getAndIncrement);
+
+    private final long maxValue;
+    private final int precisionBits;
+    private final int numberOfBuckets;
+    private final int stripeMask;
+    private final int stripeLength;
+    /**
+     * Contains the counters of all stripes, each stripe occupies {@link #stripeLength} elements.
+     */
+    private final long[] counts;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param maxValue The maximum value that can be recorded, larger values are recorded
+     * as {@code maxValue}. The memory occupied by the histogram grows logarithmically
+     * with {@code maxValue}.
+     * @param precisionBits Must be in [1, 20]. The relative error of reported values
+     * does not exceed 2<sup>1-{@code precisionBits}</sup>, e.g., 0.8% for 8 bits.
+     * The memory occupied by the histogram grows exponentially with {@code precisionBits}.
+     * @param stripes The number of stripes, which is rounded up to a power of two
+     * not greater than {@value #MAX_STRIPES}.
+     * Using more stripes than there are writing threads is not beneficial.
+     */
+    public LatencyHistogram(final long maxValue, final int precisionBits, final int stripes) {
+        if (maxValue < 1) {
+            throw new IllegalArgumentException("maxValue=" + maxValue);
+        }
+        if (precisionBits < 1 || precisionBits > 20) {
+            throw new IllegalArgumentException("precisionBits=" + precisionBits);
+        }
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes=" + stripes);
+        }
+        this.maxValue = maxValue;
+        this.precisionBits = precisionBits;
+        numberOfBuckets = bucket(maxValue, precisionBits) + 1;
+        final int numberOfStripes = Integer.highestOneBit(Math.min(stripes, MAX_STRIPES) * 2 - 1);
+        stripeMask = numberOfStripes - 1;
+        stripeLength = numberOfBuckets + STRIPE_PADDING;
+        counts = new long[STRIPE_PADDING + numberOfStripes * stripeLength];
+    }
+
+    /**
+     * Creates an empty histogram of nanoseconds up to an hour with 8 bits of precision
+     * and a stripe per available processor.
+     */
+    public LatencyHistogram() {
+        this(TimeUnit.HOURS.toNanos(1), 8, Runtime.getRuntime()
+                .availableProcessors());
+    }
+
+    /**
+     * Records the {@code value}.
+     *
+     * @param value Must not be negative.
+     */
+    public void record(final long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value=" + value);
+        }
+        COUNTS.getAndAdd(counts, stripeOffset() + bucket(Math.min(value, maxValue), precisionBits),
+                1L);
+    }
+
+    /**
+     * Returns the counts of values recorded before this method was called,
+     * and possibly of some values recorded concurrently.
+     */
+    public Snapshot snapshot() {
+        final long[] bucketCounts = new long[numberOfBuckets];
+        for (int stripeOffset = STRIPE_PADDING; stripeOffset < counts.length;
+                stripeOffset += stripeLength) {
+            for (int i = 0; i < numberOfBuckets; i++) {
+                bucketCounts[i] += (long) COUNTS.getOpaque(counts, stripeOffset + i);
+            }
+        }
+        return new Snapshot(precisionBits, bucketCounts);
+    }
+
+    /**
+     * Returns the offset of the stripe of the current thread,
+     * see {@link LatencyHistogram} for how threads are assigned to stripes.
+     */
+    private int stripeOffset() {
+        return STRIPE_PADDING + (THREAD_INDEX.get() & stripeMask) * stripeLength;
+    }
+
+    /**
+     * Returns the index of the bucket containing the {@code value}.
+     * Values in [0, 2<sup>p</sup>), where p is {@code precisionBits},
+     * have their own buckets. Values in [2<sup>k</sup>, 2<sup>k+1</sup>), where k &ge; p,
+     * are split into 2<sup>p-1</sup> buckets of the same width.
+     */
+    static int bucket(final long value, final int precisionBits) {
+        final int shift = Long.SIZE - precisionBits - Long.numberOfLeadingZeros(value);
+        if (shift <= 0) {
+            return (int) value;
+        }
+        return (shift << (precisionBits - 1)) + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the smallest value in the {@code bucket}.
+     *
+     * @see #bucket(long, int)
+     */
+    static long lowestValue(final int bucket, final int precisionBits) {
+        final int shift = (bucket >>> (precisionBits - 1)) - 1;
+        if (shift <= 0) {
+            return bucket;
+        }
+        return (long) (bucket - (shift << (precisionBits - 1))) << shift;
+    }
+
+    /**
+     * Returns the largest value in the {@code bucket}.
+     *
+     * @see #bucket(long, int)
+     */
+    static long highestValue(final int bucket, final int precisionBits) {
+        final int shift = (bucket >>> (precisionBits - 1)) - 1;
+        return lowestValue(bucket, precisionBits) + (shift <= 0 ? 0 : (1L << shift) - 1);
+    }
+
+    /**
+     * Immutable counts of values recorded by a {@link LatencyHistogram}.
+     * Snapshots of histograms with the same {@code maxValue} and {@code precisionBits} may be
+     * {@linkplain #plus(Snapshot) merged}, and the counts for an interval between two snapshots
+     * of the same histogram may be {@linkplain #minus(Snapshot) calculated}.
+     */
+    public static final class Snapshot {
+        private final int precisionBits;
+        private final long[] counts;
+        private final long count;
+
+        private Snapshot(final int precisionBits, final long[] counts) {
+            this.precisionBits = precisionBits;
+            this.counts = counts;
+            count = Arrays.stream(counts)
+                    .sum();
+        }
+
+        /**
+         * Returns the number of recorded values.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the value such that {@code percentile}% of the recorded values are
+         * not greater than it, or 0 if there are no values.
+         * The returned value is the largest value of the bucket containing the percentile,
+         * so it is never less than the exact percentile.
+         *
+         * @param percentile Must be in [0, 100].
+         */
+        public long valueAtPercentile(final double percentile) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile=" + percentile);
+            }
+            final long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long cumulativeCount = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulativeCount += counts[i];
+                if (cumulativeCount >= target) {
+                    return highestValue(i, precisionBits);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Returns the largest recorded value with the precision of the histogram,
+         * or 0 if there are no values.
+         */
+        public long max() {
+            return valueAtPercentile(100);
+        }
+
+        /**
+         * Returns the mean of the recorded values with the precision of the histogram,
+         * or {@link Double#NaN} if there are no values.
+         */
+        public double mean() {
+            double sum = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    sum += counts[i] * ((lowestValue(i, precisionBits)
+                            + (double) highestValue(i, precisionBits)) / 2);
+                }
+            }
+            return sum / count;
+        }
+
+        /**
+         * Returns a snapshot that contains the values of this snapshot and of the {@code other}.
+         */
+        public Snapshot plus(final Snapshot other) {
+            checkCompatible(other);
+            final long[] result = counts.clone();
+            for (int i = 0; i < result.length; i++) {
+                result[i] += other.counts[i];
+            }
+            return new Snapshot(precisionBits, result);
+        }
+
+        /**
+         * Returns a snapshot that contains the values recorded after the {@code earlier}
+         * snapshot was taken and before this snapshot was taken.
+         *
+         * @param earlier Must be a snapshot of the same histogram taken before this one.
+         */
+        public Snapshot minus(final Snapshot earlier) {
+            checkCompatible(earlier);
+            final long[] result = counts.clone();
+            for (int i = 0; i < result.length; i++) {
+                result[i] -= earlier.counts[i];
+                if (result[i] < 0) {
+                    throw new IllegalArgumentException(
+                            "The earlier snapshot contains values absent in this snapshot");
+                }
+            }
+            return new Snapshot(precisionBits, result);
+        }
+
+        @Override
+        public String toString() {
+            return count == 0
+                    ? "count=0"
+                    : String.format(Locale.ROOT,
+                            "count=%d, mean=%.1f, p50=%d, p90=%d, p99=%d, p99.9=%d, max=%d",
+                            count, mean(), valueAtPercentile(50), valueAtPercentile(90),
+                            valueAtPercentile(99), valueAtPercentile(99.9), max());
+        }
+
+        private void checkCompatible(final Snapshot other) {
+            if (precisionBits != other.precisionBits || counts.length != other.counts.length) {
+                throw new IllegalArgumentException(
+                        "The snapshots are of histograms with different parameters");
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+final class LatencyHistogramTest {
+    private static final Random RND = new Random(1L);
+
+    @Test
+    final void illegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(0, 8, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(1000, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(1000, 21, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(1000, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram().record(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LatencyHistogram().snapshot()
+                        .valueAtPercentile(100.1));
+    }
+
+    /**
+     * Verifies that buckets are contiguous, and their width does not exceed
+     * the precision of the histogram.
+     */
+    @Test
+    final void buckets() {
+        for (final int precisionBits : new int[] {1, 2, 8, 20}) {
+            long expectedLowestValue = 0;
+            for (int bucket = 0; bucket <= LatencyHistogram.bucket(Long.MAX_VALUE, precisionBits);
+                    bucket++) {
+                final long lowestValue = LatencyHistogram.lowestValue(bucket, precisionBits);
+                final long highestValue = LatencyHistogram.highestValue(bucket, precisionBits);
+                final String message = "precisionBits=" + precisionBits + ", bucket=" + bucket;
+                assertEquals(expectedLowestValue, lowestValue, message);
+                assertTrue(highestValue >= lowestValue, message);
+                assertTrue((highestValue - lowestValue) * Math.pow(2, precisionBits - 1)
+                        <= lowestValue, message);
+                assertEquals(bucket, LatencyHistogram.bucket(lowestValue, precisionBits), message);
+                assertEquals(bucket, LatencyHistogram.bucket(highestValue, precisionBits), message);
+                expectedLowestValue = highestValue + 1;
+            }
+            assertEquals(Long.MIN_VALUE, expectedLowestValue, "precisionBits=" + precisionBits);
+        }
+    }
+
+    @Test
+    final void empty() {
+        final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.valueAtPercentile(50));
+        assertEquals(0, snapshot.max());
+        assertTrue(Double.isNaN(snapshot.mean()));
+    }
+
+    @Test
+    final void percentiles() {
+        final int precisionBits = 8;
+        final double maxRelativeError = Math.pow(2, 1 - precisionBits);
+        final LatencyHistogram histogram = new LatencyHistogram(1L << 40, precisionBits, 4);
+        final long[] values = RND.longs(100_000, 0, 10_000_000)
+                .toArray();
+        Arrays.stream(values)
+                .forEach(histogram::record);
+        Arrays.sort(values);
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.count());
+        for (final double percentile : new double[] {0, 1, 10, 50, 90, 99, 99.9, 99.99, 100}) {
+            final long expected = values[Math.max(0,
+                    (int) Math.ceil(percentile / 100 * values.length) - 1)];
+            final long actual = snapshot.valueAtPercentile(percentile);
+            final String message = "percentile=" + percentile;
+            assertTrue(actual >= expected, message);
+            assertTrue(actual - expected <= expected * maxRelativeError, message);
+        }
+        final double expectedMean = Arrays.stream(values)
+                .average()
+                .orElseThrow();
+        assertEquals(expectedMean, snapshot.mean(), expectedMean * maxRelativeError);
+    }
+
+    @Test
+    final void maxValue() {
+        final LatencyHistogram histogram = new LatencyHistogram(1000, 8, 1);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(1, histogram.snapshot()
+                .count());
+        assertEquals(LatencyHistogram.highestValue(LatencyHistogram.bucket(1000, 8), 8),
+                histogram.snapshot()
+                        .max());
+    }
+
+    @Test
+    final void snapshotArithmetic() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.range(0, 100)
+                .forEach(histogram::record);
+        final LatencyHistogram.Snapshot first = histogram.snapshot();
+        IntStream.range(200, 250)
+                .forEach(histogram::record);
+        final LatencyHistogram.Snapshot second = histogram.snapshot();
+        final LatencyHistogram.Snapshot interval = second.minus(first);
+        assertEquals(50, interval.count());
+        assertEquals(200, interval.valueAtPercentile(0));
+        assertEquals(249, interval.max());
+        final LatencyHistogram.Snapshot merged = interval.plus(first);
+        assertEquals(150, merged.count());
+        assertEquals(0, merged.valueAtPercentile(0));
+        assertEquals(second.valueAtPercentile(50), merged.valueAtPercentile(50));
+        assertThrows(IllegalArgumentException.class, () -> first.minus(second));
+        assertThrows(IllegalArgumentException.class,
+                () -> first.plus(new LatencyHistogram(1000, 8, 1).snapshot()));
+    }
+
+    @Test
+    final void concurrentWriters() throws Exception {
+        final int numberOfThreads = 8;
+        final int valuesPerThread = 100_000;
+        final LatencyHistogram histogram = new LatencyHistogram(1_000_000, 8, 4);
+        final ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        try {
+            final Future<?>[] futures = new Future<?>[numberOfThreads];
+            for (int i = 0; i < numberOfThreads; i++) {
+                final long value = i;
+                futures[i] = executor.submit(() -> {
+                    for (int j = 0; j < valuesPerThread; j++) {
+                        histogram.record(value);
+                    }
+                });
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals((long) numberOfThreads * valuesPerThread, snapshot.count());
+        assertEquals(numberOfThreads - 1, snapshot.max());
+        assertEquals(numberOfThreads / 2 - 1, snapshot.valueAtPercentile(50));
+    }
+
+    private LatencyHistogramTest() {
+    }
+}
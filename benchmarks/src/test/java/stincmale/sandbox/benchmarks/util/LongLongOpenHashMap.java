@@ -0,0 +1,239 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map with {@code long} keys and {@code long} values.
+ * Unlike {@link java.util.HashMap}, it does not box keys and values and does not allocate
+ * an entry per mapping: it uses open addressing with linear probing,
+ * and removes mappings via backward shift deletion instead of leaving tombstones.
+ * Keys and values are interleaved in a single array, so that a successful lookup
+ * usually touches a single cache line.
+ * <p>
+ * Methods that must report a missing mapping return the {@linkplain #absentValue() absent value}
+ * specified when creating the map.</p>
+ * <p>
+ * This class is not thread-safe.</p>
+ */
+public final class LongLongOpenHashMap {
+    private static final long FREE_KEY = 0;
+    private static final int MIN_CAPACITY = 2;
+    // the table length is twice the capacity
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    private final float loadFactor;
+    private final long absentValue;
+    /**
+     * Contains a key at each even index, and the corresponding value at the next odd index.
+     */
+    private long[] table;
+    private int shift;
+    private int mask;
+    private int growThreshold;
+    /**
+     * The number of mappings excluding the mapping for {@link #FREE_KEY}.
+     */
+    private int size;
+    private boolean hasFreeKey;
+    private long freeKeyValue;
+
+    /**
+     * Creates an empty map.
+     *
+     * @param expectedSize The number of mappings the map is expected to contain,
+     * the map does not grow until this number is exceeded.
+     * @param loadFactor The maximum ratio of the number of mappings
+     * to the number of slots in the table, must be in (0, 1).
+     * @param absentValue See {@link #absentValue()}.
+     */
+    public LongLongOpenHashMap(
+            final int expectedSize, final float loadFactor, final long absentValue) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize=" + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor=" + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.absentValue = absentValue;
+        allocate(OpenHashing.capacity(expectedSize, loadFactor, MIN_CAPACITY, MAX_CAPACITY));
+    }
+
+    public LongLongOpenHashMap(final long absentValue) {
+        this(0, 0.75f, absentValue);
+    }
+
+    /**
+     * Returns the value that signifies the absence of a mapping.
+     * The map still allows mapping a key to this value,
+     * in which case {@link #containsKey(long)} must be used to tell such a mapping
+     * from the absence of a mapping.
+     */
+    public long absentValue() {
+        return absentValue;
+    }
+
+    public int size() {
+        return hasFreeKey ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(final long key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey;
+        }
+        return find(key) >= 0;
+    }
+
+    /**
+     * Returns the value mapped to the {@code key}.
+     *
+     * @return The value mapped to the {@code key},
+     * or the {@linkplain #absentValue() absent value} if there is no such mapping.
+     */
+    public long get(final long key) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeKeyValue : absentValue;
+        }
+        final long[] table = this.table;
+        for (int idx = slot(key); ; idx = (idx + 2) & mask) {
+            final long k = table[idx];
+            if (k == key) {
+                return table[idx + 1];
+            } else if (k == FREE_KEY) {
+                return absentValue;
+            }
+        }
+    }
+
+    /**
+     * Maps the {@code key} to the {@code value}.
+     *
+     * @return The previous value mapped to the {@code key},
+     * or the {@linkplain #absentValue() absent value} if there was no such mapping.
+     */
+    public long put(final long key, final long value) {
+        if (key == FREE_KEY) {
+            final long result = hasFreeKey ? freeKeyValue : absentValue;
+            hasFreeKey = true;
+            freeKeyValue = value;
+            return result;
+        }
+        final long[] table = this.table;
+        for (int idx = slot(key); ; idx = (idx + 2) & mask) {
+            final long k = table[idx];
+            if (k == key) {
+                final long result = table[idx + 1];
+                table[idx + 1] = value;
+                return result;
+            } else if (k == FREE_KEY) {
+                table[idx] = key;
+                table[idx + 1] = value;
+                if (++size > growThreshold) {
+                    rehash(OpenHashing.grownCapacity(table.length >> 1, MAX_CAPACITY));
+                }
+                return absentValue;
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for the {@code key}.
+     *
+     * @return The value that was mapped to the {@code key},
+     * or the {@linkplain #absentValue() absent value} if there was no such mapping.
+     */
+    public long remove(final long key) {
+        if (key == FREE_KEY) {
+            final long result = hasFreeKey ? freeKeyValue : absentValue;
+            hasFreeKey = false;
+            return result;
+        }
+        final int idx = find(key);
+        if (idx < 0) {
+            return absentValue;
+        }
+        final long result = table[idx + 1];
+        shiftBack(idx);
+        size--;
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(table, FREE_KEY);
+        size = 0;
+        hasFreeKey = false;
+    }
+
+    /**
+     * Returns the index of the {@code key} in the {@link #table}, or -1 if there is no such key.
+     */
+    private int find(final long key) {
+        final long[] table = this.table;
+        for (int idx = slot(key); ; idx = (idx + 2) & mask) {
+            final long k = table[idx];
+            if (k == key) {
+                return idx;
+            } else if (k == FREE_KEY) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Frees the slot at {@code removedIdx} by moving entries that follow it in the same cluster
+     * and may be moved closer to their home slots without breaking probing sequences.
+     */
+    private void shiftBack(final int removedIdx) {
+        final long[] table = this.table;
+        int gap = removedIdx;
+        for (int idx = (gap + 2) & mask; ; idx = (idx + 2) & mask) {
+            final long k = table[idx];
+            if (k == FREE_KEY) {
+                break;
+            }
+            // the entry may be moved to the gap iff the gap is between its home slot and idx
+            if (((idx - slot(k)) & mask) >= ((idx - gap) & mask)) {
+                table[gap] = k;
+                table[gap + 1] = table[idx + 1];
+                gap = idx;
+            }
+        }
+        table[gap] = FREE_KEY;
+        table[gap + 1] = 0;
+    }
+
+    /**
+     * Returns the index of the home slot of the {@code key} in the {@link #table}.
+     */
+    private int slot(final long key) {
+        return OpenHashing.slot(key, shift) << 1;
+    }
+
+    private void allocate(final int capacity) {
+        table = new long[capacity << 1];
+        shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+        mask = (capacity << 1) - 1;
+        growThreshold = OpenHashing.growThreshold(capacity, loadFactor);
+    }
+
+    private void rehash(final int newCapacity) {
+        final long[] oldTable = table;
+        allocate(newCapacity);
+        final long[] table = this.table;
+        for (int oldIdx = 0; oldIdx < oldTable.length; oldIdx += 2) {
+            final long k = oldTable[oldIdx];
+            if (k != FREE_KEY) {
+                int idx = slot(k);
+                while (table[idx] != FREE_KEY) {
+                    idx = (idx + 2) & mask;
+                }
+                table[idx] = k;
+                table[idx + 1] = oldTable[oldIdx + 1];
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+final class LongLongOpenHashMapTest {
+    private static final long ABSENT = -1;
+
+    @Test
+    final void freeKey() {
+        final LongLongOpenHashMap map = new LongLongOpenHashMap(ABSENT);
+        assertEquals(ABSENT, map.get(0));
+        assertEquals(ABSENT, map.put(0, 1));
+        assertTrue(map.containsKey(0));
+        assertEquals(1, map.size());
+        assertEquals(1, map.put(0, 2));
+        assertEquals(2, map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    final void absentValueMayBeMapped() {
+        final LongLongOpenHashMap map = new LongLongOpenHashMap(ABSENT);
+        assertFalse(map.containsKey(1));
+        map.put(1, ABSENT);
+        assertTrue(map.containsKey(1));
+        assertEquals(ABSENT, map.get(1));
+    }
+
+    /**
+     * Keys that are multiples of a big power of two collide in a small table,
+     * which forms long clusters that must survive removals.
+     */
+    @Test
+    final void collidingKeys() {
+        final LongLongOpenHashMap map = new LongLongOpenHashMap(0, 0.9f, ABSENT);
+        final Map<Long, Long> expected = new HashMap<>();
+        for (long i = 1; i <= 1000; i++) {
+            final long key = i << 40;
+            assertEquals(unbox(expected.put(key, i)), map.put(key, i));
+        }
+        for (long i = 1; i <= 1000; i += 3) {
+            final long key = i << 40;
+            assertEquals(unbox(expected.remove(key)), map.remove(key));
+        }
+        for (long i = 1; i <= 1000; i++) {
+            final long key = i << 40;
+            assertEquals(unbox(expected.get(key)), map.get(key));
+        }
+        assertEquals(expected.size(), map.size());
+    }
+
+    @Test
+    final void randomOperations() {
+        final Random rnd = new Random(1L);
+        for (final float loadFactor : new float[] {0.25f, 0.5f, 0.75f, 0.99f}) {
+            final LongLongOpenHashMap map = new LongLongOpenHashMap(0, loadFactor, ABSENT);
+            final Map<Long, Long> expected = new HashMap<>();
+            final int keyBound = 2000;
+            for (int i = 0; i < 100_000; i++) {
+                final long key = rnd.nextInt(keyBound);
+                final long value = rnd.nextInt(Integer.MAX_VALUE);
+                switch (rnd.nextInt(3)) {
+                    case 0 -> assertEquals(unbox(expected.put(key, value)), map.put(key, value));
+                    case 1 -> assertEquals(unbox(expected.remove(key)), map.remove(key));
+                    default -> assertEquals(unbox(expected.get(key)), map.get(key));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            for (long key = 0; key < keyBound; key++) {
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                assertEquals(unbox(expected.get(key)), map.get(key));
+            }
+            map.clear();
+            assertTrue(map.isEmpty());
+            assertFalse(map.containsKey(rnd.nextInt(keyBound)));
+        }
+    }
+
+    private static final long unbox(final Long value) {
+        return value == null ? ABSENT : value;
+    }
+
+    private LongLongOpenHashMapTest() {
+    }
+}
@@ -0,0 +1,69 @@
+package stincmale.sandbox.benchmarks.util;
+
+/**
+ * Functionality shared by hash maps that use open addressing with linear probing.
+ * The tables of such maps have power-of-two capacities, and slots are computed via
+ * <a href="https://en.wikipedia.org/wiki/Hash_function#Fibonacci_hashing">Fibonacci hashing</a>,
+ * which does not require keys to have well-distributed low bits.
+ */
+final class OpenHashing {
+    // 2^32 / golden ratio
+    private static final int INT_PHI = 0x9E3779B9;
+    // 2^64 / golden ratio
+    private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+    private OpenHashing() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Returns the smallest power-of-two capacity of a table that allows holding
+     * {@code expectedSize} keys without exceeding the {@code loadFactor},
+     * and leaves at least one slot free.
+     */
+    static final int capacity(
+            final int expectedSize, final float loadFactor,
+            final int minCapacity, final int maxCapacity) {
+        final long requiredCapacity = Math.max(
+                (long) Math.ceil(expectedSize / (double) loadFactor), expectedSize + 1L);
+        if (requiredCapacity > maxCapacity) {
+            throw new IllegalArgumentException(
+                    "expectedSize=" + expectedSize + ", loadFactor=" + loadFactor);
+        }
+        return Math.max(minCapacity, Integer.highestOneBit((int) requiredCapacity - 1) << 1);
+    }
+
+    /**
+     * Returns the capacity a table with the specified {@code capacity} must grow to.
+     */
+    static final int grownCapacity(final int capacity, final int maxCapacity) {
+        if (capacity >= maxCapacity) {
+            throw new IllegalStateException("The maximum capacity " + maxCapacity + " is reached");
+        }
+        return capacity << 1;
+    }
+
+    /**
+     * Returns the maximum number of keys a table with the specified {@code capacity} may contain
+     * before it must grow.
+     */
+    static final int growThreshold(final int capacity, final float loadFactor) {
+        return Math.min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    /**
+     * Returns the home slot of the {@code key} in a table with capacity
+     * {@code 2^(}{@link Integer#SIZE}{@code  - shift)}.
+     */
+    static final int slot(final int key, final int shift) {
+        return (key * INT_PHI) >>> shift;
+    }
+
+    /**
+     * Returns the home slot of the {@code key} in a table with capacity
+     * {@code 2^(}{@link Long#SIZE}{@code  - shift)}.
+     */
+    static final int slot(final long key, final int shift) {
+        return (int) ((key * LONG_PHI) >>> shift);
+    }
+}
@@ -0,0 +1,284 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+import org.openjdk.jmh.results.TextResult;
+
+/**
+ * Tracks how a long-running benchmark behaves over time.
+ * Each measurement iteration is a sample, for which the profiler records
+ * <ul>
+ *     <li>the score;</li>
+ *     <li>{@code soak.heap.afterGc} - the heap usage after the most recent GC, in MiB;</li>
+ *     <li>{@code soak.gc.count} - the number of GC pauses;</li>
+ *     <li>{@code soak.gc.pause.max} - the longest GC pause, in ms.</li>
+ * </ul>
+ * <p>
+ * After a trial, the profiler reports the samples as a time series ({@code soak})
+ * and a verdict, which flags</p>
+ * <ul>
+ *     <li>score drift - the mean score in the last quarter of the samples is worse than
+ *     in the first quarter by more than {@value #MAX_DRIFT_PERCENT}%;</li>
+ *     <li>heap growth - the mean heap usage after GC in the last quarter of the samples
+ *     is higher than in the first quarter by more than {@value #MAX_HEAP_GROWTH_PERCENT}%;</li>
+ *     <li>GC pause spikes - the longest GC pause is longer than the median of the longest GC pauses
+ *     of the samples by more than {@value #MAX_PAUSE_SPIKE_FACTOR} times.</li>
+ * </ul>
+ * <p>
+ * The drift and the heap growth are also reported as {@code soak.drift} and
+ * {@code soak.heap.growth} respectively, in percent.
+ * See {@link JmhOptions} for how to run benchmarks in the soak mode,
+ * which uses this profiler.</p>
+ */
+public final class SoakProfiler implements InternalProfiler, ExternalProfiler {
+    public static final double MAX_DRIFT_PERCENT = 5;
+    public static final double MAX_HEAP_GROWTH_PERCENT = 10;
+    public static final double MAX_PAUSE_SPIKE_FACTOR = 10;
+    private static final String LABEL_PREFIX = "soak.";
+    private static final String HEAP_AFTER_GC = LABEL_PREFIX + "heap.afterGc";
+    private static final String GC_COUNT = LABEL_PREFIX + "gc.count";
+    private static final String GC_PAUSE_MAX = LABEL_PREFIX + "gc.pause.max";
+    /**
+     * See {@code com.sun.management.GarbageCollectionNotificationInfo}.
+     */
+    private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+    private static final double MIB = 1024 * 1024;
+    private static final String EPSILON_GC = "-XX:+UseEpsilonGC";
+
+    /**
+     * GC pause durations in ms, which are produced by GC notifications
+     * and consumed by {@link #afterIteration(BenchmarkParams, IterationParams, IterationResult)}.
+     */
+    private final Queue<Long> gcPauses;
+    @Nullable
+    private NotificationListener gcListener;
+
+    public SoakProfiler() {
+        gcPauses = new ConcurrentLinkedQueue<>();
+    }
+
+    @Override
+    public void beforeIteration(
+            final BenchmarkParams benchmarkParams, final IterationParams iterationParams) {
+        if (gcListener == null) {
+            gcListener = (notification, handback) -> onGcNotification(notification);
+            for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (gc instanceof final NotificationEmitter emitter) {
+                    emitter.addNotificationListener(gcListener, null, null);
+                }
+            }
+        }
+        gcPauses.clear();
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterIteration(
+            final BenchmarkParams benchmarkParams, final IterationParams iterationParams,
+            final IterationResult result) {
+        int gcCount = 0;
+        long gcPauseMax = 0;
+        for (Long pause = gcPauses.poll(); pause != null; pause = gcPauses.poll()) {
+            gcCount++;
+            gcPauseMax = Math.max(gcPauseMax, pause);
+        }
+        long heapAfterGc = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            @Nullable
+            final MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                heapAfterGc += usage.getUsed();
+            }
+        }
+        return List.of(
+                new ScalarResult(HEAP_AFTER_GC, heapAfterGc / MIB, "MiB", AggregationPolicy.AVG),
+                new ScalarResult(GC_COUNT, gcCount, "#", AggregationPolicy.SUM),
+                new ScalarResult(GC_PAUSE_MAX, gcPauseMax, "ms", AggregationPolicy.MAX));
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(final BenchmarkParams params) {
+        return List.of();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(final BenchmarkParams params) {
+        return List.of();
+    }
+
+    /**
+     * Refuses to run benchmarks with Epsilon GC, which never collects garbage,
+     * so there is neither the heap usage after GC nor GC pauses to track,
+     * and a long-running benchmark that allocates runs out of memory.
+     */
+    @Override
+    public void beforeTrial(final BenchmarkParams params) {
+        if (params.getJvmArgs()
+                .contains(EPSILON_GC)) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT,
+                    "%s cannot be run in the soak mode because it is run with %s",
+                    params.getBenchmark(), EPSILON_GC));
+        }
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterTrial(
+            final BenchmarkResult br, final long pid, final File stdOut, final File stdErr) {
+        final List<Sample> samples = new ArrayList<>();
+        final double sampleSeconds = br.getParams()
+                .getMeasurement()
+                .getTime()
+                .convertTo(TimeUnit.MILLISECONDS) / 1000d;
+        for (final IterationResult iteration : br.getIterationResults()) {
+            samples.add(new Sample(
+                    (samples.size() + 1) * sampleSeconds,
+                    iteration.getPrimaryResult()
+                            .getScore(),
+                    secondaryScore(iteration, HEAP_AFTER_GC),
+                    secondaryScore(iteration, GC_COUNT),
+                    secondaryScore(iteration, GC_PAUSE_MAX)));
+        }
+        final boolean higherIsBetter = br.getParams()
+                .getMode() == Mode.Throughput;
+        final double drift = (higherIsBetter ? -1 : 1)
+                * changePercent(samples.stream()
+                        .mapToDouble(Sample::score)
+                        .toArray());
+        final double heapGrowth = changePercent(samples.stream()
+                .mapToDouble(Sample::heapAfterGc)
+                .toArray());
+        final double[] pauses = samples.stream()
+                .filter(sample -> sample.gcCount() > 0)
+                .mapToDouble(Sample::gcPauseMax)
+                .sorted()
+                .toArray();
+        final StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "%10s %16s %12s %8s %12s%n",
+                "time, s", "score, " + br.getScoreUnit(), "heap, MiB", "GCs", "max pause, ms"));
+        for (final Sample sample : samples) {
+            report.append(String.format(Locale.ROOT, "%10.1f %16.3f %12.1f %8.0f %12.0f%n",
+                    sample.seconds(), sample.score(), sample.heapAfterGc(),
+                    sample.gcCount(), sample.gcPauseMax()));
+        }
+        report.append(verdict(drift, heapGrowth, pauses));
+        return List.of(
+                new ScalarResult(LABEL_PREFIX + "drift", drift, "%", AggregationPolicy.AVG),
+                new ScalarResult(
+                        LABEL_PREFIX + "heap.growth", heapGrowth, "%", AggregationPolicy.AVG),
+                new TextResult(report.toString(), "soak"));
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Score drift, heap growth and GC pause tracking for long-running benchmarks";
+    }
+
+    private void onGcNotification(final Notification notification) {
+        if (!GC_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        final CompositeData info = (CompositeData) notification.getUserData();
+        final String gcName = (String) info.get("gcName");
+        // concurrent collectors report cycles that mostly run concurrently with the application
+        if (!gcName.contains("Concurrent") && !gcName.contains("Cycles")) {
+            gcPauses.add((Long) ((CompositeData) info.get("gcInfo")).get("duration"));
+        }
+    }
+
+    private static final double secondaryScore(final IterationResult result, final String label) {
+        @Nullable
+        final Result<?> secondaryResult = result.getSecondaryResults()
+                .get(label);
+        return secondaryResult == null ? Double.NaN : secondaryResult.getScore();
+    }
+
+    /**
+     * Returns how much the mean of the last quarter of {@code values} is greater than
+     * the mean of the first quarter, in percent, or {@link Double#NaN} if there are
+     * fewer than 4 values, or the mean of the first quarter is 0.
+     */
+    private static final double changePercent(final double[] values) {
+        final int quarter = values.length / 4;
+        if (quarter == 0) {
+            return Double.NaN;
+        }
+        final double first = Arrays.stream(values, 0, quarter)
+                .average()
+                .orElseThrow();
+        final double last = Arrays.stream(values, values.length - quarter, values.length)
+                .average()
+                .orElseThrow();
+        return first == 0 ? Double.NaN : (last - first) / first * 100;
+    }
+
+    /**
+     * Returns a verdict that lists the findings, if any.
+     *
+     * @param sortedPauses The longest GC pause of each sample with GCs, in ascending order.
+     */
+    private static final String verdict(
+            final double drift, final double heapGrowth, final double[] sortedPauses) {
+        final List<String> findings = new ArrayList<>();
+        if (Double.isNaN(drift)) {
+            findings.add("too few samples to detect drift, at least 4 are needed");
+        } else if (drift > MAX_DRIFT_PERCENT) {
+            findings.add(String.format(Locale.ROOT, "score drift: %.1f%% worse", drift));
+        }
+        if (heapGrowth > MAX_HEAP_GROWTH_PERCENT) {
+            findings.add(String.format(Locale.ROOT, "heap growth: %.1f%%", heapGrowth));
+        }
+        if (sortedPauses.length == 0) {
+            findings.add("no GCs happened, heap growth and GC pauses are unknown");
+        } else {
+            final double median = sortedPauses[(sortedPauses.length - 1) / 2];
+            final double max = sortedPauses[sortedPauses.length - 1];
+            if (max > MAX_PAUSE_SPIKE_FACTOR * Math.max(median, 1)) {
+                findings.add(String.format(Locale.ROOT,
+                        "GC pause spikes: max %.0f ms, median %.0f ms", max, median));
+            }
+        }
+        return findings.isEmpty()
+                ? String.format(Locale.ROOT, "verdict: stable%n")
+                : String.format(Locale.ROOT, "verdict: %s%n", String.join("; ", findings));
+    }
+
+    private record Sample(
+            double seconds, double score, double heapAfterGc, double gcCount, double gcPauseMax) {
+    }
+}
@@ -0,0 +1,124 @@
+package stincmale.sandbox.benchmarks.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.ExternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports time-to-safepoint (TTSP), i.e., how long it takes all Java threads to reach
+ * a safepoint after one is requested, in ms. The results include warmup iterations.
+ * <p>
+ * Unlike {@link org.openjdk.jmh.profile.SafepointsProfiler}, understands the
+ * {@code -Xlog:safepoint} output format of JDK 17+, which looks like
+ * <pre>{@code
+ * [1.004s][info][safepoint] Safepoint "ThreadDump", Time since last: 5502285 ns,
+ *   Reaching safepoint: 1891 ns, Cleanup: 2957 ns, At safepoint: 32089 ns, Total: 36937 ns
+ * }</pre></p>
+ */
+public final class TimeToSafepointProfiler implements ExternalProfiler {
+    private static final Pattern REACHING_SAFEPOINT =
+            Pattern.compile("Reaching safepoint: (\\d+) ns");
+    private static final String LABEL_PREFIX = "ttsp.";
+
+    @Nullable
+    private Path log;
+
+    public TimeToSafepointProfiler() {
+    }
+
+    @Override
+    public Collection<String> addJVMInvokeOptions(final BenchmarkParams params) {
+        return List.of();
+    }
+
+    @Override
+    public Collection<String> addJVMOptions(final BenchmarkParams params) {
+        try {
+            log = Files.createTempFile("sandbox-ttsp-", ".log");
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return List.of("-Xlog:safepoint=info:file=" + log);
+    }
+
+    @Override
+    public void beforeTrial(final BenchmarkParams params) {
+    }
+
+    @Override
+    public Collection<? extends Result<?>> afterTrial(
+            final BenchmarkResult br, final long pid, final File stdOut, final File stdErr) {
+        if (log == null) {
+            return List.of();
+        }
+        final double[] ttspMillis;
+        try (Stream<String> lines = Files.lines(log)) {
+            ttspMillis = lines.map(REACHING_SAFEPOINT::matcher)
+                    .filter(Matcher::find)
+                    .mapToDouble(matcher -> Long.parseLong(matcher.group(1)) / 1e6)
+                    .sorted()
+                    .toArray();
+            Files.delete(log);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            log = null;
+        }
+        return List.of(
+                new ScalarResult(
+                        LABEL_PREFIX + "count", ttspMillis.length, "#", AggregationPolicy.SUM),
+                new ScalarResult(LABEL_PREFIX + "avg",
+                        Arrays.stream(ttspMillis)
+                                .average()
+                                .orElse(Double.NaN),
+                        "ms", AggregationPolicy.AVG),
+                new ScalarResult(LABEL_PREFIX + "p0.50", percentile(ttspMillis, 0.5),
+                        "ms", AggregationPolicy.AVG),
+                new ScalarResult(LABEL_PREFIX + "p0.99", percentile(ttspMillis, 0.99),
+                        "ms", AggregationPolicy.AVG),
+                new ScalarResult(LABEL_PREFIX + "max", percentile(ttspMillis, 1),
+                        "ms", AggregationPolicy.MAX));
+    }
+
+    @Override
+    public boolean allowPrintOut() {
+        return true;
+    }
+
+    @Override
+    public boolean allowPrintErr() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Time-to-safepoint profiler";
+    }
+
+    /**
+     * Returns the {@code p}-th percentile of {@code sorted} values,
+     * or {@link Double#NaN} if there are none.
+     */
+    private static final double percentile(final double[] sorted, final double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        final int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+}
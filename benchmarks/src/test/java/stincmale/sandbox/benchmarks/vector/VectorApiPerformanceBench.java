@@ -0,0 +1,651 @@
+package stincmale.sandbox.benchmarks.vector;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+// @CheckstyleOff IllegalImport for 6 lines
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import static org.openjdk.jmh.runner.options.TimeValue.milliseconds;
+import stincmale.sandbox.benchmarks.PrimitiveDataTypeMathPerformanceBench;
+import stincmale.sandbox.benchmarks.PrimitiveDataTypeMathPerformanceBench.ArrayState;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.concat;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.includeBenchmarks;
+import static stincmale.sandbox.benchmarks.util.JmhOptions.newOptionsBuilder;
+import stincmale.sandbox.benchmarks.util.JmhResults;
+import static stincmale.sandbox.benchmarks.util.JmhResults.byJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.forEachJvm;
+import static stincmale.sandbox.benchmarks.util.JmhResults.format;
+import static stincmale.sandbox.benchmarks.util.JmhResults.intParamValues;
+import static stincmale.sandbox.benchmarks.util.JmhResults.key;
+import static stincmale.sandbox.benchmarks.util.JmhResults.score;
+import stincmale.sandbox.benchmarks.util.JmhRunner;
+
+/**
+ * Compares kernels over {@code int}/{@code long}/{@code float}/{@code double} arrays
+ * written as scalar loops, with kernels explicitly vectorized via the
+ * <a href="https://openjdk.org/jeps/417">Vector API</a>.
+ * A benchmark {@code xyzTypeArray} is a scalar loop, which C2 may auto-vectorize via SuperWord,
+ * and {@code xyzTypeVector} is its counterpart written with the Vector API.
+ * The {@code add}, {@code mult} and {@code div} scalar loops, as well as the arrays all kernels
+ * operate on, are those of {@link PrimitiveDataTypeMathPerformanceBench}.
+ * {@link #run()} runs scalar loops twice: with and without SuperWord,
+ * so that explicit vectorization may be compared with both auto-vectorized and scalar code.
+ * <p>
+ * Note that the Vector API reduction in {@link #sumFloatVector(ArrayState)}
+ * and {@link #sumDoubleVector(ArrayState)} adds elements in an order different from
+ * the scalar loop, which is why C2 is not allowed to vectorize the scalar loop,
+ * and why the results may differ.</p>
+ * <p>
+ * This class is compiled separately from other benchmarks because using the incubating
+ * {@code jdk.incubator.vector} module results in a compilation warning that cannot be
+ * suppressed.</p>
+ */
+public class VectorApiPerformanceBench {
+    private static final String[] JVM_ARGS_ADD_VECTOR_MODULE =
+            {"--add-modules", "jdk.incubator.vector"};
+    private static final String SCALAR_KERNELS_REGEXP = "\\.\\w+Array$";
+    private static final String SHARED_SCALAR_KERNELS_REGEXP = "\\.(add|mult|div)\\w+Array$";
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONG_SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLE_SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    public VectorApiPerformanceBench() {
+    }
+
+    @Test
+    public void run() throws RunnerException {
+        final Collection<RunResult> results = JmhRunner.run(newOptions()
+                .include(includeBenchmarks(getClass()))
+                .jvmArgsAppend(JVM_ARGS_ADD_VECTOR_MODULE)
+                .build());
+        final Collection<RunResult> resultsNoSuperWord = JmhRunner.run(newOptions()
+                .include(includeBenchmarks(getClass(), SCALAR_KERNELS_REGEXP))
+                .jvmArgsAppend(concat(
+                        JVM_ARGS_ADD_VECTOR_MODULE, new String[] {"-XX:-UseSuperWord"}))
+                .build());
+        final Map<String, List<RunResult>> resultsNoSuperWordByJvm = byJvm(resultsNoSuperWord);
+        forEachJvm(results, (jvm, jvmResults) -> printComparison(
+                jvmResults, resultsNoSuperWordByJvm.getOrDefault(jvm, List.of())));
+    }
+
+    @Benchmark
+    public int[] fillIntArray(final ArrayState state) {
+        final int[] c = state.intsC();
+        for (int i = 0; i < c.length; i++) {
+            c[i] = 1;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] fillIntVector(final ArrayState state) {
+        final int[] c = state.intsC();
+        final IntVector ones = IntVector.broadcast(INT_SPECIES, 1);
+        final int upperBound = INT_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += INT_SPECIES.length()) {
+            ones.intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = 1;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] indexFillIntArray(final ArrayState state) {
+        final int[] c = state.intsC();
+        for (int i = 0; i < c.length; i++) {
+            c[i] = i;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] indexFillIntVector(final ArrayState state) {
+        final int[] c = state.intsC();
+        final int step = INT_SPECIES.length();
+        final IntVector stepVector = IntVector.broadcast(INT_SPECIES, step);
+        IntVector indices = IntVector.zero(INT_SPECIES)
+                .addIndex(1);
+        final int upperBound = INT_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += step) {
+            indices.intoArray(c, i);
+            indices = indices.add(stepVector);
+        }
+        for (; i < c.length; i++) {
+            c[i] = i;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] addIntVector(final ArrayState state) {
+        final int[] a = state.intsA();
+        final int[] b = state.intsB();
+        final int[] c = state.intsC();
+        final int upperBound = INT_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += INT_SPECIES.length()) {
+            IntVector.fromArray(INT_SPECIES, a, i)
+                    .add(IntVector.fromArray(INT_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] multIntVector(final ArrayState state) {
+        final int[] a = state.intsA();
+        final int[] b = state.intsB();
+        final int[] c = state.intsC();
+        final int upperBound = INT_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += INT_SPECIES.length()) {
+            IntVector.fromArray(INT_SPECIES, a, i)
+                    .mul(IntVector.fromArray(INT_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int[] divIntVector(final ArrayState state) {
+        final int[] a = state.intsA();
+        final int[] b = state.intsB();
+        final int[] c = state.intsC();
+        final int upperBound = INT_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += INT_SPECIES.length()) {
+            IntVector.fromArray(INT_SPECIES, a, i)
+                    .div(IntVector.fromArray(INT_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public int sumIntArray(final ArrayState state) {
+        final int[] a = state.intsA();
+        int result = 0;
+        for (int i = 0; i < a.length; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int sumIntVector(final ArrayState state) {
+        final int[] a = state.intsA();
+        IntVector sums = IntVector.zero(INT_SPECIES);
+        final int upperBound = INT_SPECIES.loopBound(a.length);
+        int i = 0;
+        for (; i < upperBound; i += INT_SPECIES.length()) {
+            sums = sums.add(IntVector.fromArray(INT_SPECIES, a, i));
+        }
+        int result = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long[] fillLongArray(final ArrayState state) {
+        final long[] c = state.longsC();
+        for (int i = 0; i < c.length; i++) {
+            c[i] = 1;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] fillLongVector(final ArrayState state) {
+        final long[] c = state.longsC();
+        final LongVector ones = LongVector.broadcast(LONG_SPECIES, 1);
+        final int upperBound = LONG_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += LONG_SPECIES.length()) {
+            ones.intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = 1;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] indexFillLongArray(final ArrayState state) {
+        final long[] c = state.longsC();
+        for (int i = 0; i < c.length; i++) {
+            c[i] = i;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] indexFillLongVector(final ArrayState state) {
+        final long[] c = state.longsC();
+        final int step = LONG_SPECIES.length();
+        final LongVector stepVector = LongVector.broadcast(LONG_SPECIES, step);
+        LongVector indices = LongVector.zero(LONG_SPECIES)
+                .addIndex(1);
+        final int upperBound = LONG_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += step) {
+            indices.intoArray(c, i);
+            indices = indices.add(stepVector);
+        }
+        for (; i < c.length; i++) {
+            c[i] = i;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] addLongVector(final ArrayState state) {
+        final long[] a = state.longsA();
+        final long[] b = state.longsB();
+        final long[] c = state.longsC();
+        final int upperBound = LONG_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += LONG_SPECIES.length()) {
+            LongVector.fromArray(LONG_SPECIES, a, i)
+                    .add(LongVector.fromArray(LONG_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] multLongVector(final ArrayState state) {
+        final long[] a = state.longsA();
+        final long[] b = state.longsB();
+        final long[] c = state.longsC();
+        final int upperBound = LONG_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += LONG_SPECIES.length()) {
+            LongVector.fromArray(LONG_SPECIES, a, i)
+                    .mul(LongVector.fromArray(LONG_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long[] divLongVector(final ArrayState state) {
+        final long[] a = state.longsA();
+        final long[] b = state.longsB();
+        final long[] c = state.longsC();
+        final int upperBound = LONG_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += LONG_SPECIES.length()) {
+            LongVector.fromArray(LONG_SPECIES, a, i)
+                    .div(LongVector.fromArray(LONG_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public long sumLongArray(final ArrayState state) {
+        final long[] a = state.longsA();
+        long result = 0;
+        for (int i = 0; i < a.length; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long sumLongVector(final ArrayState state) {
+        final long[] a = state.longsA();
+        LongVector sums = LongVector.zero(LONG_SPECIES);
+        final int upperBound = LONG_SPECIES.loopBound(a.length);
+        int i = 0;
+        for (; i < upperBound; i += LONG_SPECIES.length()) {
+            sums = sums.add(LongVector.fromArray(LONG_SPECIES, a, i));
+        }
+        long result = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public float[] fillFloatArray(final ArrayState state) {
+        final float[] c = state.floatsC();
+        for (int i = 0; i < c.length; i++) {
+            c[i] = 1;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] fillFloatVector(final ArrayState state) {
+        final float[] c = state.floatsC();
+        final FloatVector ones = FloatVector.broadcast(FLOAT_SPECIES, 1);
+        final int upperBound = FLOAT_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += FLOAT_SPECIES.length()) {
+            ones.intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = 1;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] indexFillFloatArray(final ArrayState state) {
+        final float[] c = state.floatsC();
+        for (int i = 0; i < c.length; i++) {
+            c[i] = i;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] indexFillFloatVector(final ArrayState state) {
+        final float[] c = state.floatsC();
+        final int step = FLOAT_SPECIES.length();
+        final FloatVector stepVector = FloatVector.broadcast(FLOAT_SPECIES, step);
+        FloatVector indices = FloatVector.zero(FLOAT_SPECIES)
+                .addIndex(1);
+        final int upperBound = FLOAT_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += step) {
+            indices.intoArray(c, i);
+            indices = indices.add(stepVector);
+        }
+        for (; i < c.length; i++) {
+            c[i] = i;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] addFloatVector(final ArrayState state) {
+        final float[] a = state.floatsA();
+        final float[] b = state.floatsB();
+        final float[] c = state.floatsC();
+        final int upperBound = FLOAT_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += FLOAT_SPECIES.length()) {
+            FloatVector.fromArray(FLOAT_SPECIES, a, i)
+                    .add(FloatVector.fromArray(FLOAT_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] multFloatVector(final ArrayState state) {
+        final float[] a = state.floatsA();
+        final float[] b = state.floatsB();
+        final float[] c = state.floatsC();
+        final int upperBound = FLOAT_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += FLOAT_SPECIES.length()) {
+            FloatVector.fromArray(FLOAT_SPECIES, a, i)
+                    .mul(FloatVector.fromArray(FLOAT_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float[] divFloatVector(final ArrayState state) {
+        final float[] a = state.floatsA();
+        final float[] b = state.floatsB();
+        final float[] c = state.floatsC();
+        final int upperBound = FLOAT_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += FLOAT_SPECIES.length()) {
+            FloatVector.fromArray(FLOAT_SPECIES, a, i)
+                    .div(FloatVector.fromArray(FLOAT_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public float sumFloatArray(final ArrayState state) {
+        final float[] a = state.floatsA();
+        float result = 0;
+        for (int i = 0; i < a.length; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public float sumFloatVector(final ArrayState state) {
+        final float[] a = state.floatsA();
+        FloatVector sums = FloatVector.zero(FLOAT_SPECIES);
+        final int upperBound = FLOAT_SPECIES.loopBound(a.length);
+        int i = 0;
+        for (; i < upperBound; i += FLOAT_SPECIES.length()) {
+            sums = sums.add(FloatVector.fromArray(FLOAT_SPECIES, a, i));
+        }
+        float result = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double[] fillDoubleArray(final ArrayState state) {
+        final double[] c = state.doublesC();
+        for (int i = 0; i < c.length; i++) {
+            c[i] = 1;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] fillDoubleVector(final ArrayState state) {
+        final double[] c = state.doublesC();
+        final DoubleVector ones = DoubleVector.broadcast(DOUBLE_SPECIES, 1);
+        final int upperBound = DOUBLE_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += DOUBLE_SPECIES.length()) {
+            ones.intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = 1;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] indexFillDoubleArray(final ArrayState state) {
+        final double[] c = state.doublesC();
+        for (int i = 0; i < c.length; i++) {
+            c[i] = i;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] indexFillDoubleVector(final ArrayState state) {
+        final double[] c = state.doublesC();
+        final int step = DOUBLE_SPECIES.length();
+        final DoubleVector stepVector = DoubleVector.broadcast(DOUBLE_SPECIES, step);
+        DoubleVector indices = DoubleVector.zero(DOUBLE_SPECIES)
+                .addIndex(1);
+        final int upperBound = DOUBLE_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += step) {
+            indices.intoArray(c, i);
+            indices = indices.add(stepVector);
+        }
+        for (; i < c.length; i++) {
+            c[i] = i;
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] addDoubleVector(final ArrayState state) {
+        final double[] a = state.doublesA();
+        final double[] b = state.doublesB();
+        final double[] c = state.doublesC();
+        final int upperBound = DOUBLE_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += DOUBLE_SPECIES.length()) {
+            DoubleVector.fromArray(DOUBLE_SPECIES, a, i)
+                    .add(DoubleVector.fromArray(DOUBLE_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] multDoubleVector(final ArrayState state) {
+        final double[] a = state.doublesA();
+        final double[] b = state.doublesB();
+        final double[] c = state.doublesC();
+        final int upperBound = DOUBLE_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += DOUBLE_SPECIES.length()) {
+            DoubleVector.fromArray(DOUBLE_SPECIES, a, i)
+                    .mul(DoubleVector.fromArray(DOUBLE_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double[] divDoubleVector(final ArrayState state) {
+        final double[] a = state.doublesA();
+        final double[] b = state.doublesB();
+        final double[] c = state.doublesC();
+        final int upperBound = DOUBLE_SPECIES.loopBound(c.length);
+        int i = 0;
+        for (; i < upperBound; i += DOUBLE_SPECIES.length()) {
+            DoubleVector.fromArray(DOUBLE_SPECIES, a, i)
+                    .div(DoubleVector.fromArray(DOUBLE_SPECIES, b, i))
+                    .intoArray(c, i);
+        }
+        for (; i < c.length; i++) {
+            c[i] = a[i] / b[i];
+        }
+        return c;
+    }
+
+    @Benchmark
+    public double sumDoubleArray(final ArrayState state) {
+        final double[] a = state.doublesA();
+        double result = 0;
+        for (int i = 0; i < a.length; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double sumDoubleVector(final ArrayState state) {
+        final double[] a = state.doublesA();
+        DoubleVector sums = DoubleVector.zero(DOUBLE_SPECIES);
+        final int upperBound = DOUBLE_SPECIES.loopBound(a.length);
+        int i = 0;
+        for (; i < upperBound; i += DOUBLE_SPECIES.length()) {
+            sums = sums.add(DoubleVector.fromArray(DOUBLE_SPECIES, a, i));
+        }
+        double result = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    private static final ChainedOptionsBuilder newOptions() {
+        return newOptionsBuilder(opts -> opts.forks(5)
+                .warmupTime(milliseconds(100))
+                .warmupIterations(10)
+                .measurementTime(milliseconds(100))
+                .measurementIterations(3))
+                .include(includeBenchmarks(
+                        PrimitiveDataTypeMathPerformanceBench.class, SHARED_SCALAR_KERNELS_REGEXP))
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS);
+    }
+
+    private static final void printComparison(
+            final Collection<RunResult> results, final Collection<RunResult> resultsNoSuperWord) {
+        final Map<String, RunResult> index =
+                JmhResults.index(results, result -> key(result, "length"));
+        final Map<String, RunResult> indexNoSuperWord =
+                JmhResults.index(resultsNoSuperWord, result -> key(result, "length"));
+        System.out.printf(Locale.ROOT, "%n# non-JMH: "
+                + "scalar loop without SuperWord vs with SuperWord vs Vector API, ns/op%n");
+        System.out.printf(Locale.ROOT, "%-16s %8s %14s %14s %14s%n",
+                "kernel", "length", "no SuperWord", "SuperWord", "Vector API");
+        for (final String kernel
+                : new String[] {"fill", "indexFill", "add", "mult", "div", "sum"}) {
+            for (final String type : new String[] {"Int", "Long", "Float", "Double"}) {
+                for (final int length : intParamValues(ArrayState.class, "length")) {
+                    final String scalarKey = key(kernel + type + "Array", length);
+                    System.out.printf(Locale.ROOT, "%-16s %8d %14s %14s %14s%n",
+                            kernel + type,
+                            length,
+                            format(indexNoSuperWord.get(scalarKey), "%.3f", JmhResults::score),
+                            format(index.get(scalarKey), "%.3f", JmhResults::score),
+                            format(index.get(key(kernel + type + "Vector", length)),
+                                    "%.3f", JmhResults::score));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package stincmale.sandbox.examples.tcpkeepalive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.HELLO;
+import static stincmale.sandbox.examples.tcpkeepalive.ServerModeComparison.awaitListening;
+import static stincmale.sandbox.examples.tcpkeepalive.ServerModeComparison.freePort;
+import static stincmale.sandbox.examples.tcpkeepalive.ServerModeComparison.startServer;
+
+/**
+ * Compares the throughput of the {@code blocking} mode of the {@link Server}
+ * depending on its read buffer size under clients that stream messages continuously,
+ * that is, send messages without waiting for their echoes, and concurrently read the echoes.
+ * The read buffer sizes are specified via the command-line arguments (1, 16, 256, 4096 by default),
+ * the first one is the baseline.
+ * <p>
+ * With the read buffer size 1, the server makes a read and a write system call per message,
+ * while with larger buffers it makes them per batch of the messages that have arrived.</p>
+ * <p>
+ * Each server is started in a new JVM, so clients stream messages for {@link #WARMUP_DURATION}
+ * before the throughput is measured, which gives the JIT compiler time
+ * to compile the code of the server.</p>
+ */
+final class EchoBatchingComparison {
+    private static final Duration WARMUP_DURATION = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT_DURATION = Duration.ofSeconds(10);
+    private static final int STREAMING_CONNECTIONS = 4;
+    private static final int CLIENT_BUFFER_SIZE = 4096;
+    // U+0078, LATIN SMALL LETTER X
+    private static final byte MESSAGE = (byte) 0x78;
+
+    public static final void main(final String... args) throws IOException, InterruptedException {
+        final int[] readBufferSizes = args.length == 0
+                ? new int[] {1, 16, 256, 4096}
+                : Arrays.stream(args)
+                        .mapToInt(Integer::parseInt)
+                        .toArray();
+        final double[] throughputs = new double[readBufferSizes.length];
+        for (int i = 0; i < readBufferSizes.length; i++) {
+            throughputs[i] = throughput(readBufferSizes[i]);
+        }
+        System.out.printf(Locale.ROOT, "%n%-16s %18s %8s%n",
+                "read buffer size", "throughput, msg/s", "speedup");
+        for (int i = 0; i < readBufferSizes.length; i++) {
+            System.out.printf(Locale.ROOT, "%16d %18.0f %8.2f%n",
+                    readBufferSizes[i], throughputs[i], throughputs[i] / throughputs[0]);
+        }
+    }
+
+    /**
+     * Returns the number of messages per second echoed by the server with
+     * the {@code readBufferSize} to {@value #STREAMING_CONNECTIONS} streaming connections,
+     * not counting the messages echoed during {@link #WARMUP_DURATION}.
+     */
+    private static final double throughput(final int readBufferSize)
+            throws IOException, InterruptedException {
+        final InetSocketAddress serverAddress = new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), freePort());
+        final Process server = startServer(
+                serverAddress, "blocking", Integer.toString(readBufferSize));
+        final ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            awaitListening(serverAddress, server);
+            final long warmupDeadlineNanos = System.nanoTime() + WARMUP_DURATION.toNanos();
+            final long deadlineNanos = warmupDeadlineNanos + MEASUREMENT_DURATION.toNanos();
+            final List<Future<Long>> counts = new ArrayList<>();
+            for (int i = 0; i < STREAMING_CONNECTIONS; i++) {
+                final Socket socket = new Socket();
+                socket.connect(serverAddress);
+                clients.submit(() -> {
+                    stream(socket, deadlineNanos);
+                    return null;
+                });
+                counts.add(clients.submit(() -> {
+                    try (socket) {
+                        return receive(socket, warmupDeadlineNanos, deadlineNanos);
+                    }
+                }));
+            }
+            long total = 0;
+            for (final Future<Long> count : counts) {
+                total += count.get();
+            }
+            return total / (double) MEASUREMENT_DURATION.toSeconds();
+        } catch (final ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            server.destroyForcibly();
+            server.waitFor();
+            clients.shutdownNow();
+            clients.close();
+        }
+    }
+
+    /**
+     * Sends {@code hello} followed by other messages until the {@code deadlineNanos}.
+     */
+    private static final void stream(final Socket socket, final long deadlineNanos)
+            throws IOException {
+        final byte[] messages = new byte[CLIENT_BUFFER_SIZE];
+        Arrays.fill(messages, MESSAGE);
+        try {
+            final OutputStream out = socket.getOutputStream();
+            out.write(HELLO);
+            while (System.nanoTime() - deadlineNanos < 0) {
+                out.write(messages);
+            }
+        } catch (final IOException e) {
+            if (System.nanoTime() - deadlineNanos < 0) {
+                throw e;
+            }
+            // the socket was closed by the receiving thread after the deadline
+        }
+    }
+
+    /**
+     * Receives messages until the {@code deadlineNanos}, and returns the number of messages
+     * received after the {@code warmupDeadlineNanos}.
+     */
+    private static final long receive(
+            final Socket socket, final long warmupDeadlineNanos, final long deadlineNanos)
+            throws IOException {
+        final byte[] messages = new byte[CLIENT_BUFFER_SIZE];
+        final InputStream in = socket.getInputStream();
+        long result = 0;
+        while (System.nanoTime() - deadlineNanos < 0) {
+            final int receivedLength = in.read(messages);
+            if (receivedLength == -1) {
+                throw new IOException("The server disconnected " + socket);
+            }
+            if (System.nanoTime() - warmupDeadlineNanos >= 0) {
+                result += receivedLength;
+            }
+        }
+        return result;
+    }
+
+    private EchoBatchingComparison() {
+        throw new AssertionError();
+    }
+}
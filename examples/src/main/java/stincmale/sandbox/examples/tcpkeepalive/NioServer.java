@@ -0,0 +1,275 @@
+package stincmale.sandbox.examples.tcpkeepalive;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.HELLO;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.LOG_MESSAGES;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.SO_READ_TIMEOUT_MILLIS;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.TCP_KEEP_ALIVE_IDLE_SECONDS;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.abort;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.close;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.enableTcpKeepAlive;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.log;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.printStackTraceToString;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.toUnsignedHexString;
+
+/**
+ * A non-blocking implementation of the {@link Server}, which serves all connections
+ * with a fixed number of event loops instead of a thread per connection.
+ * The protocol behavior is the same as that of the {@link Server}.
+ * <p>
+ * Connections are accepted by the thread calling {@link #serve(InetSocketAddress, int)}
+ * and are assigned to event loops in a round-robin fashion.
+ * Each event loop multiplexes its connections with a {@link Selector}.
+ * Because non-blocking sockets do not support read timeouts, each event loop
+ * periodically checks which of its connections have not received any data within
+ * the read timeout, so a connection may be aborted up to {@link #READ_TIMEOUT_CHECK_MILLIS}
+ * later than the timeout expires.</p>
+ */
+final class NioServer {
+    private static final int READ_TIMEOUT_CHECK_MILLIS = 1000;
+    private static final int READ_BUFFER_SIZE = 1024;
+
+    /**
+     * Listens on the {@code serverSocketAddress} and serves accepted connections with
+     * {@code numberOfEventLoops} event loops.
+     */
+    static final void serve(
+            final InetSocketAddress serverSocketAddress, final int numberOfEventLoops)
+            throws IOException {
+        if (numberOfEventLoops < 1) {
+            throw new IllegalArgumentException("numberOfEventLoops=" + numberOfEventLoops);
+        }
+        final ThreadFactory threadFactory = new Server.NamingThreadFactory("loop");
+        final EventLoop[] eventLoops = new EventLoop[numberOfEventLoops];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop(SO_READ_TIMEOUT_MILLIS);
+            threadFactory.newThread(eventLoops[i])
+                    .start();
+        }
+        log("Starting listening on " + serverSocketAddress + " with " + numberOfEventLoops
+                + " event loops");
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(serverSocketAddress);
+            log("Accepting connections on " + serverChannel);
+            // noinspection InfiniteLoopStatement
+            for (long i = 0; true; i++) {
+                // infinitely wait for new incoming connections
+                final SocketChannel clientChannel = serverChannel.accept();
+                boolean successfullyAccepted = false;
+                try {
+                    log("Accepted a new connection " + clientChannel.socket());
+                    enableTcpKeepAlive(clientChannel.socket(), TCP_KEEP_ALIVE_IDLE_SECONDS, 8);
+                    clientChannel.configureBlocking(false);
+                    eventLoops[(int) (i % eventLoops.length)].register(clientChannel);
+                    successfullyAccepted = true;
+                } finally {
+                    if (!successfullyAccepted) {
+                        abort(clientChannel.socket());
+                    }
+                }
+            }
+        }
+    }
+
+    private NioServer() {
+        throw new AssertionError();
+    }
+
+    private static final class EventLoop implements Runnable {
+        private final Selector selector;
+        /**
+         * Connections accepted but not yet registered with the {@link #selector},
+         * which may only be done by the event loop thread without blocking.
+         */
+        private final Queue<SocketChannel> newConnections;
+        private final long readTimeoutNanos;
+        /**
+         * Shared by all connections of this event loop, because data is processed
+         * right after it is read.
+         */
+        private final ByteBuffer readBuffer;
+        /**
+         * Shared by all connections of this event loop, because data is written right after
+         * it is produced, and only the data that cannot be written without blocking
+         * is copied to {@link Connection#pendingOut}.
+         */
+        private final ByteBuffer writeBuffer;
+
+        private EventLoop(final int readTimeoutMillis) throws IOException {
+            selector = Selector.open();
+            newConnections = new ConcurrentLinkedQueue<>();
+            readTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(readTimeoutMillis);
+            readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            writeBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        }
+
+        private void register(final SocketChannel channel) {
+            newConnections.add(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                long lastReadTimeoutCheckNanos = System.nanoTime();
+                // noinspection InfiniteLoopStatement
+                while (true) {
+                    selector.select(this::handle, READ_TIMEOUT_CHECK_MILLIS);
+                    registerNewConnections();
+                    final long nowNanos = System.nanoTime();
+                    if (nowNanos - lastReadTimeoutCheckNanos
+                            >= TimeUnit.MILLISECONDS.toNanos(READ_TIMEOUT_CHECK_MILLIS)) {
+                        abortTimedOut(nowNanos);
+                        lastReadTimeoutCheckNanos = nowNanos;
+                    }
+                }
+            } catch (final RuntimeException | IOException e) {
+                log(String.format(Locale.ROOT, "Exception in the event loop. %s",
+                        printStackTraceToString(e)));
+            }
+        }
+
+        private void registerNewConnections() {
+            for (SocketChannel channel = newConnections.poll(); channel != null;
+                    channel = newConnections.poll()) {
+                boolean successfullyRegistered = false;
+                try {
+                    channel.register(selector, SelectionKey.OP_READ,
+                            new Connection(channel, System.nanoTime()));
+                    log("Set read timeout " + TimeUnit.NANOSECONDS.toMillis(readTimeoutNanos)
+                            + " ms for " + channel.socket());
+                    successfullyRegistered = true;
+                } catch (final ClosedChannelException e) {
+                    log(String.format(Locale.ROOT, "Exception when registering %s. %s",
+                            channel.socket(), printStackTraceToString(e)));
+                } finally {
+                    if (!successfullyRegistered) {
+                        abort(channel.socket());
+                    }
+                }
+            }
+        }
+
+        private void handle(final SelectionKey key) {
+            final Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isWritable()) {
+                    connection.writePending(key);
+                }
+                if (key.isValid() && key.isReadable()) {
+                    connection.read(key, readBuffer, writeBuffer);
+                }
+            } catch (final RuntimeException | IOException e) {
+                log(String.format(Locale.ROOT, "Exception when serving %s. %s",
+                        connection.socketDescription, printStackTraceToString(e)));
+                abort(connection.channel.socket());
+            }
+        }
+
+        private void abortTimedOut(final long nowNanos) {
+            for (final SelectionKey key : selector.keys()) {
+                final Connection connection = (Connection) key.attachment();
+                if (key.isValid() && (key.interestOps() & SelectionKey.OP_READ) != 0
+                        && nowNanos - connection.lastReadNanos >= readTimeoutNanos) {
+                    log(String.format(Locale.ROOT, "Read timed out for %s",
+                            connection.socketDescription));
+                    abort(connection.channel.socket());
+                }
+            }
+        }
+    }
+
+    /**
+     * The state of a connection, which is accessed only by its event loop.
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final String socketDescription;
+        @Nullable
+        private Boolean wellBehavedClient;
+        private long lastReadNanos;
+        /**
+         * Data that could not be written without blocking. While there is such data,
+         * the connection does not read, similarly to how the blocking {@link Server}
+         * does not read while writing.
+         */
+        @Nullable
+        private ByteBuffer pendingOut;
+
+        private Connection(final SocketChannel channel, final long nowNanos) {
+            this.channel = channel;
+            socketDescription = channel.socket()
+                    .toString();
+            lastReadNanos = nowNanos;
+        }
+
+        private void read(
+                final SelectionKey key, final ByteBuffer readBuffer, final ByteBuffer writeBuffer)
+                throws IOException {
+            readBuffer.clear();
+            final int receivedLength = channel.read(readBuffer);
+            if (receivedLength == -1) {
+                log("The client " + socketDescription + " disconnected");
+                close(channel.socket());
+                return;
+            } else if (receivedLength == 0) {
+                return;
+            }
+            lastReadNanos = System.nanoTime();
+            readBuffer.flip();
+            writeBuffer.clear();
+            while (readBuffer.hasRemaining()) {
+                final byte inMessage = readBuffer.get();
+                if (wellBehavedClient == null) {
+                    wellBehavedClient = inMessage == HELLO;
+                }
+                if (!wellBehavedClient) {
+                    log("The client " + socketDescription + " is not well-behaved");
+                    abort(channel.socket());
+                    return;
+                }
+                if (LOG_MESSAGES) {
+                    log("Received " + toUnsignedHexString(inMessage) + " via "
+                            + socketDescription);
+                    log("Sending " + toUnsignedHexString(inMessage) + " via "
+                            + socketDescription);
+                }
+                writeBuffer.put(inMessage);
+            }
+            writeBuffer.flip();
+            channel.write(writeBuffer);
+            if (writeBuffer.hasRemaining()) {
+                pendingOut = ByteBuffer.allocate(writeBuffer.remaining());
+                pendingOut.put(writeBuffer)
+                        .flip();
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+        }
+
+        private void writePending(final SelectionKey key) throws IOException {
+            if (pendingOut != null) {
+                channel.write(pendingOut);
+                if (pendingOut.hasRemaining()) {
+                    return;
+                }
+                pendingOut = null;
+            }
+            // the read timeout does not include the time spent writing, as in the blocking Server
+            lastReadNanos = System.nanoTime();
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+}
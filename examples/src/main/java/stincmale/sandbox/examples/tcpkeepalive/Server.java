@@ -86,22 +86,72 @@ import static jdk.net.ExtendedSocketOptions.TCP_KEEPINTERVAL;
  *     This way we prevent accumulation of sockets in the TIME-WAIT state on the server side.
  *   </li>
  * </ul>
+ * The command-line arguments are {@code <host> <port> [<mode>]}, where the mode is one of
+ * <ul>
+ *   <li>
+ *     {@code blocking [<read buffer size>]} (the default) - each connection is served by
+ *     its own platform thread, which reads up to the specified number of bytes at once,
+ *     1 by default, see {@link #serve(Socket, int, int)};
+ *   </li>
+ *   <li>
+ *     {@code virtual [<read buffer size>]} - each connection is served by
+ *     its own virtual thread, while the code serving a connection is the same as
+ *     in the {@code blocking} mode;
+ *   </li>
+ *   <li>
+ *     {@code nio [<event loops>]} - all connections are served by the specified number of
+ *     event loops, which by default is the number of available processors, see {@link NioServer}.
+ *   </li>
+ * </ul>
+ * Logging of each message may be disabled via the {@code sandbox.tcpkeepalive.logMessages}
+ * system property.
  */
 final class Server {
     // U+0068, LATIN SMALL LETTER H
-    private static final byte HELLO = (byte) 0x68;
+    static final byte HELLO = (byte) 0x68;
     // U+0062, LATIN SMALL LETTER B
     static final byte BYE = (byte) 0x62;
     static final int TCP_KEEP_ALIVE_IDLE_SECONDS = 5;
     static final int SO_READ_TIMEOUT_MILLIS =
             Math.toIntExact(TimeUnit.SECONDS.toMillis(5 * TCP_KEEP_ALIVE_IDLE_SECONDS));
+    /**
+     * Whether each received and sent message is logged.
+     * Logging messages limits the throughput much more than anything else the server does.
+     */
+    static final boolean LOG_MESSAGES = Boolean.parseBoolean(
+            System.getProperty("sandbox.tcpkeepalive.logMessages", "true"));
 
     public static final void main(final String... args) throws IOException {
         final InetSocketAddress serverSocketAddress = parseCliArgs(args);
+        final String mode = args.length > 2 ? args[2] : "blocking";
+        switch (mode) {
+            case "blocking" -> serveBlocking(serverSocketAddress,
+                    Executors.newCachedThreadPool(new NamingThreadFactory("server")),
+                    parseReadBufferSize(args));
+            case "virtual" -> serveBlocking(serverSocketAddress,
+                    Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                            .name("server-", 0)
+                            .factory()),
+                    parseReadBufferSize(args));
+            case "nio" -> NioServer.serve(serverSocketAddress, args.length > 3
+                    ? Integer.parseInt(args[3])
+                    : Runtime.getRuntime()
+                            .availableProcessors());
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    /**
+     * Listens on the {@code serverSocketAddress} and serves each accepted connection
+     * by submitting a task to the {@code executor}.
+     *
+     * @param readBufferSize See {@link #serve(Socket, int, int)}.
+     */
+    private static final void serveBlocking(
+            final InetSocketAddress serverSocketAddress, final ExecutorService executor,
+            final int readBufferSize) throws IOException {
         // infinitely wait for new incoming connections
         final int acceptTimeoutMillis = 0;
-        final ExecutorService executor =
-                Executors.newCachedThreadPool(new NamingThreadFactory("server"));
         log("Starting listening on " + serverSocketAddress);
         try (ServerSocket serverSocket = new ServerSocket()) {
             serverSocket.bind(serverSocketAddress);
@@ -116,7 +166,7 @@ final class Server {
                     enableTcpKeepAlive(clientSocket, TCP_KEEP_ALIVE_IDLE_SECONDS, 8);
                     executor.submit(() -> {
                         try {
-                            serve(clientSocket, SO_READ_TIMEOUT_MILLIS);
+                            serve(clientSocket, SO_READ_TIMEOUT_MILLIS, readBufferSize);
                         } catch (final RuntimeException | IOException e) {
                             log(String.format(Locale.ROOT, "Exception when serving %s. %s",
                                     clientSocket, printStackTraceToString(e)));
@@ -137,7 +187,7 @@ final class Server {
      * <a href="https://www.rfc-editor.org/rfc/rfc793.html#section-3.8">TCP ABORT user command</a>)
      * the connection for the specified {@code socket} and closes the {@code socket}.
      */
-    private static final void abort(final Socket socket) {
+    static final void abort(final Socket socket) {
         try (socket) {
             log("Forcefully closing " + socket);
             // close forcefully with TCP RST
@@ -166,7 +216,7 @@ final class Server {
         }
     }
 
-    private static final void enableTcpKeepAlive(
+    static final void enableTcpKeepAlive(
             final Socket socket, final int idleSeconds, final int count) throws IOException {
         socket.setKeepAlive(true);
         final long idleMillis = TimeUnit.SECONDS.toMillis(idleSeconds);
@@ -191,8 +241,19 @@ final class Server {
         }
     }
 
+    /**
+     * Serves the connection until the client disconnects, or misbehaves,
+     * or the read timeout expires.
+     *
+     * @param readBufferSize The maximum number of bytes read at once.
+     * If it is 1, then each message is read and echoed separately.
+     * Otherwise, each read byte is still processed as a separate message,
+     * but all messages read at once are echoed at once,
+     * which reduces the number of system calls when a client sends many messages in a row.
+     */
     private static final void serve(
-            final Socket clientSocket, final int readTimeoutMillis) throws IOException {
+            final Socket clientSocket, final int readTimeoutMillis, final int readBufferSize)
+            throws IOException {
         Boolean wellBehavedClient = null;
         boolean clientDisconnected = false;
         try {
@@ -200,17 +261,15 @@ final class Server {
             log("Set read timeout " + readTimeoutMillis + " ms for " + clientSocket);
             final InputStream in = clientSocket.getInputStream();
             final OutputStream out = clientSocket.getOutputStream();
-            final byte[] inData = new byte[1];
-            byte inMessage;
+            final byte[] inData = new byte[readBufferSize];
             do {
                 final int receivedLength = in.read(inData);
                 if (receivedLength > 0) {
-                    inMessage = inData[0];
                     if (wellBehavedClient == null) {
-                        wellBehavedClient = inMessage == HELLO;
+                        wellBehavedClient = inData[0] == HELLO;
                     }
                     if (wellBehavedClient) {
-                        processInMessage(inMessage, out, clientSocket.toString());
+                        processInMessages(inData, receivedLength, out, clientSocket.toString());
                     }
                 } else if (receivedLength == -1) {
                     clientDisconnected = true;
@@ -233,21 +292,50 @@ final class Server {
         }
     }
 
-    private static final void processInMessage(
-            final byte message, final OutputStream out, final String connectionDescription)
-            throws IOException {
-        log("Received " + toUnsignedHexString(message) + " via " + connectionDescription);
-        sendOutMessage(message, out, connectionDescription);
+    /**
+     * Processes the first {@code length} bytes of {@code messages}, each of which is a message.
+     */
+    private static final void processInMessages(
+            final byte[] messages, final int length, final OutputStream out,
+            final String connectionDescription) throws IOException {
+        if (LOG_MESSAGES) {
+            for (int i = 0; i < length; i++) {
+                log("Received " + toUnsignedHexString(messages[i]) + " via "
+                        + connectionDescription);
+            }
+        }
+        sendOutMessages(messages, length, out, connectionDescription);
     }
 
-    private static final void sendOutMessage(
-            final byte message, final OutputStream out, final String connectionDescription)
-            throws IOException {
-        log("Sending " + toUnsignedHexString(message) + " via " + connectionDescription);
-        out.write(message);
+    /**
+     * Sends the first {@code length} bytes of {@code messages}, each of which is a message,
+     * with a single write.
+     */
+    private static final void sendOutMessages(
+            final byte[] messages, final int length, final OutputStream out,
+            final String connectionDescription) throws IOException {
+        if (LOG_MESSAGES) {
+            for (int i = 0; i < length; i++) {
+                log("Sending " + toUnsignedHexString(messages[i]) + " via "
+                        + connectionDescription);
+            }
+        }
+        out.write(messages, 0, length);
         out.flush();
     }
 
+    /**
+     * Returns the read buffer size specified after the mode in the command-line arguments,
+     * or 1 if it is not specified.
+     */
+    private static final int parseReadBufferSize(final String... args) {
+        final int result = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        if (result < 1) {
+            throw new IllegalArgumentException("readBufferSize=" + result);
+        }
+        return result;
+    }
+
     static final String printStackTraceToString(final Exception t) {
         try (StringWriter sw = new StringWriter(); PrintWriter pw = new PrintWriter(sw)) {
             t.printStackTrace(pw);
@@ -277,11 +365,11 @@ final class Server {
         throw new AssertionError();
     }
 
-    private static final class NamingThreadFactory implements ThreadFactory {
+    static final class NamingThreadFactory implements ThreadFactory {
         private final String name;
         private final AtomicLong counter;
 
-        private NamingThreadFactory(final String name) {
+        NamingThreadFactory(final String name) {
             this.name = name;
             counter = new AtomicLong();
         }
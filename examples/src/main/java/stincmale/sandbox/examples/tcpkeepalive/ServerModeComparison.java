@@ -0,0 +1,293 @@
+package stincmale.sandbox.examples.tcpkeepalive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import static stincmale.sandbox.examples.tcpkeepalive.Server.HELLO;
+
+/**
+ * Compares the memory footprint and the throughput of the {@link Server} modes
+ * with many idle connections. For each mode and each number of connections specified via
+ * the command-line arguments (10 000 and 100 000 by default), the comparison
+ * <ol>
+ *   <li>
+ *     starts the {@link Server} in a separate JVM;
+ *   </li>
+ *   <li>
+ *     opens the idle connections, each of which sends {@code hello}, and then only sends
+ *     a message every {@link #HEARTBEAT_PERIOD} so that the server's read timeout does not expire;
+ *   </li>
+ *   <li>
+ *     reports the resident set size and the number of threads of the server process;
+ *   </li>
+ *   <li>
+ *     measures the throughput of {@value #ACTIVE_CONNECTIONS} additional connections
+ *     each of which sends a message and waits for the echo in a loop.
+ *   </li>
+ * </ol>
+ * The comparison works only on Linux: it reads the server process information from
+ * {@code /proc}, and spreads the connections over multiple loopback addresses
+ * {@code 127.0.0.2}, {@code 127.0.0.3}, etc. to not run out of ephemeral ports.
+ * The limit of open files ({@code ulimit -n}) must exceed the number of connections,
+ * and the {@code blocking} mode additionally requires the system to allow creating
+ * as many threads as there are connections.
+ * <p>
+ * The server does not log messages, because logging them limits its throughput in all modes
+ * much more than anything else.</p>
+ */
+final class ServerModeComparison {
+    private static final List<String> MODES = List.of("blocking", "virtual", "nio");
+    private static final Duration HEARTBEAT_PERIOD = Duration.ofSeconds(10);
+    private static final Duration SETTLE_DURATION = Duration.ofSeconds(2);
+    private static final Duration MEASUREMENT_DURATION = Duration.ofSeconds(10);
+    private static final int ACTIVE_CONNECTIONS = 64;
+    private static final int CONNECTIONS_PER_LOOPBACK_ADDRESS = 20_000;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    // U+0078, LATIN SMALL LETTER X
+    private static final byte MESSAGE = (byte) 0x78;
+
+    public static final void main(final String... args) throws IOException, InterruptedException {
+        final int[] connectionCounts = args.length == 0
+                ? new int[] {10_000, 100_000}
+                : Arrays.stream(args)
+                        .mapToInt(Integer::parseInt)
+                        .toArray();
+        final List<String> rows = new ArrayList<>();
+        for (final int connections : connectionCounts) {
+            for (final String mode : MODES) {
+                rows.add(String.format(Locale.ROOT, "%-10s %11d %s",
+                        mode, connections, compare(mode, connections)));
+                System.out.println(rows.get(rows.size() - 1));
+            }
+        }
+        System.out.printf(Locale.ROOT, "%n%-10s %11s %7s %9s %8s %18s%n",
+                "mode", "connections", "open, s", "RSS, MiB", "threads", "throughput, msg/s");
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * Returns the measurements for the {@code mode} and the number of {@code connections},
+     * or the description of a failure.
+     */
+    private static final String compare(final String mode, final int connections)
+            throws IOException, InterruptedException {
+        final InetSocketAddress serverAddress = new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), freePort());
+        final Process server = startServer(serverAddress, mode);
+        final ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            awaitListening(serverAddress, server);
+            final CountDownLatch greeted = new CountDownLatch(connections);
+            final long openStartNanos = System.nanoTime();
+            for (int i = 0; i < connections; i++) {
+                final Socket socket = connect(serverAddress, i);
+                clients.submit(() -> {
+                    try (socket) {
+                        exchange(socket);
+                        greeted.countDown();
+                        idle(socket);
+                    }
+                    return null;
+                });
+            }
+            if (!greeted.await(CONNECT_TIMEOUT_MILLIS + connections, TimeUnit.MILLISECONDS)) {
+                return "failed: not all connections were greeted, " + greeted.getCount() + " left";
+            }
+            final double openSeconds = (System.nanoTime() - openStartNanos) / 1e9;
+            Thread.sleep(SETTLE_DURATION.toMillis());
+            final String status = Files.readString(
+                    Path.of("/proc", Long.toString(server.pid()), "status"));
+            return String.format(Locale.ROOT, "%7.1f %9.1f %8d %18.0f",
+                    openSeconds, procStatusValue(status, "VmRSS") / 1024d,
+                    procStatusValue(status, "Threads"),
+                    throughput(serverAddress, clients, connections));
+        } catch (final IOException | RuntimeException e) {
+            return "failed: " + e;
+        } finally {
+            server.destroyForcibly();
+            server.waitFor();
+            clients.shutdownNow();
+            clients.close();
+        }
+    }
+
+    /**
+     * Returns the number of messages per second echoed to {@value #ACTIVE_CONNECTIONS}
+     * connections, each of which sends a message only after receiving the previous one.
+     *
+     * @param firstConnectionIdx The index of the first active connection
+     * used to choose loopback addresses.
+     */
+    private static final double throughput(
+            final InetSocketAddress serverAddress, final ExecutorService clients,
+            final int firstConnectionIdx) throws IOException, InterruptedException {
+        final long deadlineNanos = System.nanoTime() + MEASUREMENT_DURATION.toNanos();
+        final List<Future<Long>> counts = new ArrayList<>();
+        for (int i = 0; i < ACTIVE_CONNECTIONS; i++) {
+            final Socket socket = connect(serverAddress, firstConnectionIdx + i);
+            counts.add(clients.submit(() -> {
+                try (socket) {
+                    exchange(socket);
+                    long count = 0;
+                    while (System.nanoTime() - deadlineNanos < 0) {
+                        exchange(socket);
+                        count++;
+                    }
+                    return count;
+                }
+            }));
+        }
+        long total = 0;
+        for (final Future<Long> count : counts) {
+            try {
+                total += count.get();
+            } catch (final ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        return total / (double) MEASUREMENT_DURATION.toSeconds();
+    }
+
+    /**
+     * Starts the {@link Server} in a separate JVM without logging messages.
+     * The output of the server is discarded.
+     *
+     * @param modeArgs The mode and its arguments, see {@link Server}.
+     */
+    static final Process startServer(final InetSocketAddress address, final String... modeArgs)
+            throws IOException {
+        final List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current()
+                .info()
+                .command()
+                .orElse("java"));
+        command.add("-Dsandbox.tcpkeepalive.logMessages=false");
+        @Nullable
+        final String modulePath = System.getProperty("jdk.module.path");
+        if (modulePath == null) {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Server.class.getName());
+        } else {
+            command.add("-p");
+            command.add(modulePath);
+            command.add("-m");
+            command.add(Server.class.getModule()
+                    .getName() + "/" + Server.class.getName());
+        }
+        command.add(address.getHostString());
+        command.add(Integer.toString(address.getPort()));
+        command.addAll(List.of(modeArgs));
+        return new ProcessBuilder(command)
+                .redirectOutput(Redirect.DISCARD)
+                .redirectError(Redirect.DISCARD)
+                .start();
+    }
+
+    /**
+     * Waits until the {@code server} accepts connections.
+     */
+    static final void awaitListening(final InetSocketAddress address, final Process server)
+            throws IOException, InterruptedException {
+        final long deadlineNanos = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT_MILLIS);
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+                // the connection is aborted by the server because it does not send hello
+                socket.getOutputStream()
+                        .write(Server.BYE);
+                return;
+            } catch (final IOException e) {
+                if (!server.isAlive() || System.nanoTime() - deadlineNanos >= 0) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static final Socket connect(final InetSocketAddress serverAddress, final int idx)
+            throws IOException {
+        final Socket socket = new Socket();
+        try {
+            final byte[] localAddress = InetAddress.getLoopbackAddress()
+                    .getAddress();
+            localAddress[localAddress.length - 1] =
+                    (byte) (2 + idx / CONNECTIONS_PER_LOOPBACK_ADDRESS);
+            socket.bind(new InetSocketAddress(InetAddress.getByAddress(localAddress), 0));
+            socket.connect(serverAddress, CONNECT_TIMEOUT_MILLIS);
+            return socket;
+        } catch (final IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends {@code hello} to the server and waits for the echo.
+     * Sending {@code hello} repeatedly is allowed by the protocol.
+     */
+    private static final void exchange(final Socket socket) throws IOException {
+        final OutputStream out = socket.getOutputStream();
+        final InputStream in = socket.getInputStream();
+        out.write(HELLO);
+        if (in.read() == -1) {
+            throw new IOException("The server disconnected " + socket);
+        }
+    }
+
+    private static final void idle(final Socket socket) throws IOException, InterruptedException {
+        // spread heartbeats of different connections over time
+        Thread.sleep(ThreadLocalRandom.current()
+                .nextLong(HEARTBEAT_PERIOD.toMillis()));
+        // noinspection InfiniteLoopStatement
+        while (true) {
+            socket.getOutputStream()
+                    .write(MESSAGE);
+            socket.getInputStream()
+                    .read();
+            Thread.sleep(HEARTBEAT_PERIOD.toMillis());
+        }
+    }
+
+    private static final long procStatusValue(final String status, final String name) {
+        return status.lines()
+                .filter(line -> line.startsWith(name + ":"))
+                .findFirst()
+                .map(line -> Long.parseLong(line.substring(name.length() + 1)
+                        .replace("kB", "")
+                        .strip()))
+                .orElseThrow(() -> new IllegalStateException(name + " is not found"));
+    }
+
+    static final int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private ServerModeComparison() {
+        throw new AssertionError();
+    }
+}